@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步分布式缓存
+ * 读写不阻塞调用线程，相互独立的缓存查询可以并发执行；Key 前缀、缓存值编码以及空值占位符与 {@link DistributedCache} 保持一致
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public interface AsyncDistributedCache {
+
+    /**
+     * 异步获取缓存
+     */
+    <T> CompletableFuture<T> getAsync(@NotBlank String key, Class<T> clazz);
+
+    /**
+     * 异步批量获取缓存，返回结果与入参 Key 一一对应，未命中的 Key 对应结果为空
+     */
+    <T> CompletableFuture<List<T>> multiGetAsync(@NotNull List<String> keys, Class<T> clazz);
+
+    /**
+     * 以一种"安全"的方式异步获取缓存，缓存未命中时在加载线程池中执行 {@link DistributedCache#safeGet(String, Class, CacheLoader, long, TimeUnit)}
+     */
+    <T> CompletableFuture<T> safeGetAsync(@NotBlank String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit);
+
+    /**
+     * 异步放入缓存
+     */
+    CompletableFuture<Void> putAsync(@NotBlank String key, Object value);
+
+    /**
+     * 异步放入缓存，自定义超时时间
+     */
+    CompletableFuture<Void> putAsync(@NotBlank String key, Object value, long timeout, TimeUnit timeUnit);
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.validation.constraints.NotBlank;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.framework.starter.cache.config.MultistageCacheProperties;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheBatchLoader;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多级缓存之 Caffeine 本地缓存 + Redis 分布式缓存
+ * 一级缓存为进程内 Caffeine，按容量以及超时时间淘汰；二级缓存委托 {@link DistributedCache}
+ * 写入和删除缓存时通过 Redis 发布订阅通知其它实例失效本地缓存，未经过多级缓存直接修改 Redis 的场景依赖本地缓存超时兜底
+ * 本地缓存返回的是共享对象，调用方不允许修改返回结果
+ */
+@Slf4j
+public class CaffeineRedisMultistageCache implements MultistageCache, InitializingBean, DisposableBean {
+
+    private static final String INVALIDATE_MESSAGE_SEPARATOR = "|";
+
+    private final DistributedCache distributedCache;
+    private final MultistageCacheProperties multistageCacheProperties;
+    private final RTopic invalidateTopic;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalValue> localCache;
+    private Integer invalidateListenerId;
+
+    public CaffeineRedisMultistageCache(DistributedCache distributedCache,
+                                        MultistageCacheProperties multistageCacheProperties,
+                                        RedissonClient redissonClient,
+                                        String invalidateTopicName) {
+        this.distributedCache = distributedCache;
+        this.multistageCacheProperties = multistageCacheProperties;
+        this.invalidateTopic = redissonClient.getTopic(invalidateTopicName, StringCodec.INSTANCE);
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(multistageCacheProperties.getLocalMaximumSize())
+                .expireAfter(new Expiry<String, LocalValue>() {
+                    @Override
+                    public long expireAfterCreate(String key, LocalValue value, long currentTime) {
+                        return value.expireNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LocalValue value, long currentTime, long currentDuration) {
+                        return value.expireNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LocalValue value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        invalidateListenerId = invalidateTopic.addListener(String.class, (channel, message) -> {
+            int separatorIndex = message.indexOf(INVALIDATE_MESSAGE_SEPARATOR);
+            if (separatorIndex < 0 || instanceId.equals(message.substring(0, separatorIndex))) {
+                return;
+            }
+            localCache.invalidate(message.substring(separatorIndex + 1));
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (invalidateListenerId != null) {
+            invalidateTopic.removeListener(invalidateListenerId);
+        }
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> clazz) {
+        T result = getLocal(key, clazz);
+        if (result != null) {
+            return result;
+        }
+        result = distributedCache.get(key, clazz);
+        putLocal(key, result, multistageCacheProperties.getLocalTimeout(), multistageCacheProperties.getLocalTimeUnit());
+        return result;
+    }
+
+    @Override
+    public <T> T get(@NotBlank String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit) {
+        T result = getLocal(key, clazz);
+        if (result != null) {
+            return result;
+        }
+        result = distributedCache.get(key, clazz, cacheLoader, timeout, timeUnit);
+        putLocal(key, result, timeout, timeUnit);
+        return result;
+    }
+
+    @Override
+    public <T> T safeGet(@NotBlank String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit) {
+        T result = getLocal(key, clazz);
+        if (result != null) {
+            return result;
+        }
+        result = distributedCache.safeGet(key, clazz, cacheLoader, timeout, timeUnit);
+        putLocal(key, result, timeout, timeUnit);
+        return result;
+    }
+
+    @Override
+    public <T> List<T> safeMultiGet(List<String> keys, Class<T> clazz, CacheBatchLoader<T> cacheBatchLoader, long timeout, TimeUnit timeUnit) {
+        List<T> result = new ArrayList<>(keys.size());
+        List<Integer> missIndexes = new ArrayList<>();
+        List<String> missKeys = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            T value = getLocal(keys.get(i), clazz);
+            result.add(value);
+            if (value == null) {
+                missIndexes.add(i);
+                missKeys.add(keys.get(i));
+            }
+        }
+        if (missKeys.isEmpty()) {
+            return result;
+        }
+        List<T> missValues = distributedCache.safeMultiGet(missKeys, clazz, cacheBatchLoader, timeout, timeUnit);
+        for (int i = 0; i < missIndexes.size(); i++) {
+            T value = missValues.get(i);
+            result.set(missIndexes.get(i), value);
+            putLocal(missKeys.get(i), value, timeout, timeUnit);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        distributedCache.put(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public void put(@NotBlank String key, Object value, long timeout, TimeUnit timeUnit) {
+        distributedCache.put(key, value, timeout, timeUnit);
+        invalidate(key);
+    }
+
+    @Override
+    public Boolean putIfAllAbsent(Collection<String> keys) {
+        return distributedCache.putIfAllAbsent(keys);
+    }
+
+    @Override
+    public Boolean delete(String key) {
+        Boolean result = distributedCache.delete(key);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public Long delete(Collection<String> keys) {
+        Long result = distributedCache.delete(keys);
+        keys.forEach(this::invalidate);
+        return result;
+    }
+
+    @Override
+    public Boolean hasKey(String key) {
+        return localCache.getIfPresent(key) != null || distributedCache.hasKey(key);
+    }
+
+    @Override
+    public void invalidateLocal(@NotBlank String key) {
+        localCache.invalidate(key);
+    }
+
+    @Override
+    public Object getInstance() {
+        return distributedCache.getInstance();
+    }
+
+    private <T> T getLocal(String key, Class<T> clazz) {
+        LocalValue localValue = localCache.getIfPresent(key);
+        if (localValue == null || !clazz.isInstance(localValue.value())) {
+            return null;
+        }
+        return clazz.cast(localValue.value());
+    }
+
+    private void putLocal(String key, Object value, long timeout, TimeUnit timeUnit) {
+        if (CacheUtil.isNullOrBlank(value)) {
+            return;
+        }
+        long expireNanos = Math.min(
+                timeUnit.toNanos(timeout),
+                multistageCacheProperties.getLocalTimeUnit().toNanos(multistageCacheProperties.getLocalTimeout())
+        );
+        localCache.put(key, new LocalValue(value, expireNanos));
+    }
+
+    private void invalidate(String key) {
+        localCache.invalidate(key);
+        invalidateTopic.publishAsync(instanceId + INVALIDATE_MESSAGE_SEPARATOR + key)
+                .whenComplete((receivers, ex) -> {
+                    if (ex != null) {
+                        log.error("多级缓存发布失效通知失败，Key：{}", key, ex);
+                    }
+                });
+    }
+
+    private record LocalValue(Object value, long expireNanos) {
+    }
+}
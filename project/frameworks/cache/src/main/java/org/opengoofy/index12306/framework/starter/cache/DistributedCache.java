@@ -19,11 +19,14 @@ package org.opengoofy.index12306.framework.starter.cache;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.NotBlank;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheBatchLoader;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheGetFilter;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheGetIfAbsent;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
 import org.redisson.api.RBloomFilter;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -92,6 +95,12 @@ public interface DistributedCache extends Cache {
     <T> T safeGet(@NotBlank String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit,
                   RBloomFilter<String> bloomFilter, CacheGetFilter<String> cacheCheckFilter, CacheGetIfAbsent<String> cacheGetIfAbsent);
 
+    /**
+     * 批量获取缓存，一次查询全部 Key，未命中的 Key 通过 {@link CacheBatchLoader} 一次加载并通过管道写回缓存
+     * 返回结果与入参 Key 一一对应，加载后仍不存在的 Key 对应结果为 null
+     */
+    <T> List<T> safeMultiGet(@NotNull List<String> keys, Class<T> clazz, CacheBatchLoader<T> cacheBatchLoader, long timeout, TimeUnit timeUnit);
+
     /**
      * 放入缓存，自定义超时时间
      */
@@ -102,6 +111,11 @@ public interface DistributedCache extends Cache {
      */
     void put(@NotBlank String key, Object value, long timeout, TimeUnit timeUnit);
 
+    /**
+     * 批量放入缓存，通过管道一次写入全部 Key，自定义超时时间
+     */
+    void multiPut(@NotNull Map<String, ?> keyValues, long timeout, TimeUnit timeUnit);
+
     /**
      * 放入缓存，自定义超时时间
      * 通过此方式防止程序中可能出现的：缓存穿透、缓存击穿以及缓存雪崩场景，需要客户端传递布隆过滤器，适用于被外部直接调用的接口
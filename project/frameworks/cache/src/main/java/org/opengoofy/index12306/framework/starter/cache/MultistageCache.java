@@ -17,9 +17,44 @@
 
 package org.opengoofy.index12306.framework.starter.cache;
 
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheBatchLoader;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 多级缓存
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
 public interface MultistageCache extends Cache {
+
+    /**
+     * 获取缓存，如查询结果为空，调用 {@link CacheLoader} 加载缓存
+     */
+    <T> T get(@NotBlank String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit);
+
+    /**
+     * 以一种"安全"的方式获取缓存，如查询结果为空，调用 {@link CacheLoader} 加载缓存
+     * 本地缓存未命中时委托 {@link DistributedCache#safeGet(String, Class, CacheLoader, long, TimeUnit)}，语义与分布式缓存保持一致
+     */
+    <T> T safeGet(@NotBlank String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit);
+
+    /**
+     * 批量获取缓存，本地缓存未命中的 Key 委托 {@link DistributedCache#safeMultiGet(List, Class, CacheBatchLoader, long, TimeUnit)}
+     * 返回结果与入参 Key 一一对应
+     */
+    <T> List<T> safeMultiGet(@NotNull List<String> keys, Class<T> clazz, CacheBatchLoader<T> cacheBatchLoader, long timeout, TimeUnit timeUnit);
+
+    /**
+     * 放入缓存，自定义超时时间，并通知其它实例失效本地缓存
+     */
+    void put(@NotBlank String key, Object value, long timeout, TimeUnit timeUnit);
+
+    /**
+     * 仅失效当前实例本地缓存
+     */
+    void invalidateLocal(@NotBlank String key);
 }
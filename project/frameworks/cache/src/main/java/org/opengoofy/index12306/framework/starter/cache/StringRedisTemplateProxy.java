@@ -1,50 +1,172 @@
 package org.opengoofy.index12306.framework.starter.cache;
 
-import com.alibaba.fastjson2.JSON;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Lists;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.index12306.framework.starter.bases.Singleton;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodecManager;
+import org.opengoofy.index12306.framework.starter.cache.config.CacheCodecProperties;
+import org.opengoofy.index12306.framework.starter.cache.config.HotKeyProperties;
 import org.opengoofy.index12306.framework.starter.cache.config.RedisDistributedProperties;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheBatchLoader;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheGetFilter;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheGetIfAbsent;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
+import org.opengoofy.index12306.framework.starter.cache.hotkey.HotKeyDetector;
+import org.opengoofy.index12306.framework.starter.cache.metrics.CacheMetrics;
 import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
-import org.opengoofy.index12306.framework.starter.cache.toolkit.FastJson2Util;
 import org.redisson.api.RBloomFilter;
+import org.redisson.api.RBucket;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.scripting.support.ResourceScriptSource;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 分布式缓存之操作 Redis 模版代理
  * 底层通过 {@link RedissonClient}、{@link StringRedisTemplate} 完成外观接口行为
+ * 安全获取缓存未命中时，同一实例内相同 Key 只有一个线程竞争分布式锁并加载数据，其余线程等待共享结果
+ * 开启空值缓存后，加载结果为空时写入短超时时间的空值占位符，命中占位符时直接返回空，不再竞争分布式锁以及访问数据库
+ * 开启热点 Key 探测后，读多写少的热点 Key 会被提升到短超时时间的本地缓存，减轻单个 Redis 分片压力
+ * 开启提前刷新后，安全获取缓存命中时按照 XFetch 算法根据剩余过期时间和加载耗时概率性地异步重新加载，避免大批量缓存同时过期
+ * 读取、写入、加载以及分布式锁等待均按照 Key 逻辑前缀记录监控指标，详见 {@link CacheMetrics}
+ * 缓存值通过 {@link CacheValueCodecManager} 按照 Key 逻辑前缀编码后以字节数组读写，默认 JSON 编码与历史数据格式一致
+ * 异步接口基于 Redisson 异步命令实现，需要手动拼接 Key 前缀
+ * 提前刷新线程池以及异步加载线程池在容器关闭时停止，异步加载线程池首次使用异步安全获取时才创建
  */
-@RequiredArgsConstructor
-public class StringRedisTemplateProxy implements DistributedCache {
+@Slf4j
+public class StringRedisTemplateProxy implements DistributedCache, AsyncDistributedCache, DisposableBean {
 
     private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 与 {@link #stringRedisTemplate} 共享连接以及 Key 序列化器，以字节数组读写缓存值
+     */
+    private final RedisTemplate<String, byte[]> valueRedisTemplate;
     private final RedisDistributedProperties redisProperties;
     private final RedissonClient redissonClient;
 
+    /**
+     * 正在加载的缓存 Key 与共享加载结果
+     */
+    private final Map<String, CompletableFuture<Object>> singleFlightLoadMap = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次获取到的缓存值，获取分布式锁超时后作为降级结果返回
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> staleValueCache;
+
+    /**
+     * 缓存最近一次加载耗时，单位毫秒，用于计算提前刷新概率
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> loadCostCache;
+
+    /**
+     * 正在提前刷新的缓存 Key
+     */
+    private final Set<String> refreshAheadKeys = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor refreshAheadExecutor;
+
+    /**
+     * 异步安全获取缓存未命中时执行加载的线程池，首次使用时创建
+     */
+    private volatile ThreadPoolExecutor asyncLoadExecutor;
+
+    private volatile boolean destroyed;
+
+    /**
+     * 热点 Key 探测器，未开启热点 Key 探测时为空
+     */
+    private final HotKeyDetector hotKeyDetector;
+
+    /**
+     * 热点 Key 本地缓存，缓存 Redis 原始值
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, byte[]> hotValueCache;
+
+    /**
+     * 最近通过代理写入或删除的 Key，滑动窗口内有写入的 Key 不提升到本地缓存
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, Boolean> recentlyWrittenKeyCache;
+
+    private final CacheMetrics cacheMetrics;
+
+    private final CacheValueCodecManager cacheValueCodecManager;
+
     private static final String LUA_PUT_IF_ALL_ABSENT_SCRIPT_PATH = "lua/putIfAllAbsent.lua";
     private static final String SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX = "safe_get_distributed_lock_get:";
+    private static final byte[] NULL_VALUE_BYTES = CacheUtil.getNullValueBytes();
+
+    public StringRedisTemplateProxy(StringRedisTemplate stringRedisTemplate, RedisDistributedProperties redisProperties, RedissonClient redissonClient) {
+        this(stringRedisTemplate, redisProperties, redissonClient, null, new HotKeyProperties(), new CacheMetrics(null),
+                new CacheValueCodecManager(new CacheCodecProperties(), List.of()));
+    }
+
+    public StringRedisTemplateProxy(StringRedisTemplate stringRedisTemplate, RedisDistributedProperties redisProperties, RedissonClient redissonClient,
+                                    HotKeyDetector hotKeyDetector, HotKeyProperties hotKeyProperties, CacheMetrics cacheMetrics,
+                                    CacheValueCodecManager cacheValueCodecManager) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.valueRedisTemplate = buildValueRedisTemplate(stringRedisTemplate);
+        this.redisProperties = redisProperties;
+        this.redissonClient = redissonClient;
+        this.staleValueCache = Caffeine.newBuilder()
+                .maximumSize(redisProperties.getStaleValueMaximumSize())
+                .expireAfterWrite(redisProperties.getStaleValueTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+        this.loadCostCache = Caffeine.newBuilder()
+                .maximumSize(redisProperties.getStaleValueMaximumSize())
+                .build();
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.refreshAheadExecutor = Boolean.TRUE.equals(redisProperties.getRefreshAheadEnabled())
+                ? buildExecutor("cache-refresh-ahead-", 1, processors)
+                : null;
+        this.hotKeyDetector = hotKeyDetector;
+        this.hotValueCache = Caffeine.newBuilder()
+                .maximumSize(hotKeyProperties.getLocalMaximumSize())
+                .expireAfterWrite(hotKeyProperties.getLocalTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+        this.recentlyWrittenKeyCache = Caffeine.newBuilder()
+                .maximumSize(hotKeyProperties.getLocalMaximumSize())
+                .expireAfterWrite(hotKeyProperties.getWindowSize(), TimeUnit.MILLISECONDS)
+                .build();
+        this.cacheMetrics = cacheMetrics;
+        this.cacheValueCodecManager = cacheValueCodecManager;
+    }
 
     @Override
     public <T> T get(String key, Class<T> clazz) {
-        String value = stringRedisTemplate.opsForValue().get(key);
-        if (String.class.isAssignableFrom(clazz)) {
-            return (T) value;
-        }
-        return JSON.parseObject(value, FastJson2Util.buildType(clazz));
+        byte[] value = getValue(key);
+        return parseValue(value, clazz);
     }
 
     @Override
@@ -66,11 +188,13 @@ public class StringRedisTemplateProxy implements DistributedCache {
 
     @Override
     public Boolean delete(String key) {
+        markWritten(key);
         return stringRedisTemplate.delete(key);
     }
 
     @Override
     public Long delete(Collection<String> keys) {
+        keys.forEach(this::markWritten);
         return stringRedisTemplate.delete(keys);
     }
 
@@ -81,7 +205,11 @@ public class StringRedisTemplateProxy implements DistributedCache {
 
     @Override
     public <T> T get(@NotBlank String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit) {
-        T result = get(key, clazz);
+        byte[] value = getValue(key);
+        if (CacheUtil.isNullValue(value)) {
+            return null;
+        }
+        T result = parseValue(value, clazz);
         if (!CacheUtil.isNullOrBlank(result)) {
             return result;
         }
@@ -127,25 +255,92 @@ public class StringRedisTemplateProxy implements DistributedCache {
     @Override
     public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit,
                          RBloomFilter<String> bloomFilter, CacheGetFilter<String> cacheGetFilter, CacheGetIfAbsent<String> cacheGetIfAbsent) {
-        T result = get(key, clazz);
-        // 缓存结果不等于空或空字符串直接返回；通过函数判断是否返回空，为了适配布隆过滤器无法删除的场景；两者都不成立，判断布隆过滤器是否存在，不存在返回空
-        if (!CacheUtil.isNullOrBlank(result)
-                || Optional.ofNullable(cacheGetFilter).map(each -> each.filter(key)).orElse(false)
+        byte[] value = refreshAheadExecutor != null
+                ? getAndRefreshAhead(key, cacheLoader, timeout, timeUnit, bloomFilter)
+                : getValue(key);
+        // 命中空值占位符，数据不存在，直接返回空
+        if (CacheUtil.isNullValue(value)) {
+            Optional.ofNullable(cacheGetIfAbsent).ifPresent(each -> each.execute(key));
+            return null;
+        }
+        T result = parseValue(value, clazz);
+        if (!CacheUtil.isNullOrBlank(result)) {
+            rememberStaleValue(key, result, false);
+            return result;
+        }
+        // 通过函数判断是否返回空，为了适配布隆过滤器无法删除的场景；判断布隆过滤器是否存在，不存在返回空
+        if (Optional.ofNullable(cacheGetFilter).map(each -> each.filter(key)).orElse(false)
                 || Optional.ofNullable(bloomFilter).map(each -> !each.contains(key)).orElse(false)) {
             return result;
         }
-        RLock lock = redissonClient.getLock(SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX + key);
-        lock.lock();
+        // 同一实例内相同 Key 只允许一个线程加载，其余线程等待共享结果
+        CompletableFuture<Object> loadFuture = new CompletableFuture<>();
+        CompletableFuture<Object> inflightFuture = singleFlightLoadMap.putIfAbsent(key, loadFuture);
+        if (inflightFuture != null) {
+            return awaitSingleFlight(key, clazz, inflightFuture);
+        }
         try {
-            // 双重判定锁，减轻获得分布式锁后线程访问数据库压力
-            if (CacheUtil.isNullOrBlank(result = get(key, clazz))) {
-                // 如果访问 cacheLoader 加载数据为空，执行后置函数操作
-                if (CacheUtil.isNullOrBlank(result = loadAndSet(key, cacheLoader, timeout, timeUnit, true, bloomFilter))) {
-                    Optional.ofNullable(cacheGetIfAbsent).ifPresent(each -> each.execute(key));
-                }
-            }
+            result = lockAndLoad(key, clazz, cacheLoader, timeout, timeUnit, bloomFilter, cacheGetIfAbsent);
+            loadFuture.complete(result);
+            return result;
+        } catch (Throwable ex) {
+            loadFuture.completeExceptionally(ex);
+            throw ex;
         } finally {
-            lock.unlock();
+            singleFlightLoadMap.remove(key, loadFuture);
+        }
+    }
+
+    @Override
+    public <T> List<T> safeMultiGet(List<String> keys, Class<T> clazz, CacheBatchLoader<T> cacheBatchLoader, long timeout, TimeUnit timeUnit) {
+        List<byte[]> values = valueRedisTemplate.opsForValue().multiGet(keys);
+        List<T> result = new ArrayList<>(keys.size());
+        LinkedHashSet<String> missKeys = new LinkedHashSet<>();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] rawValue = values == null ? null : values.get(i);
+            cacheMetrics.recordGet(keys.get(i), rawValue);
+            T value = parseValue(rawValue, clazz);
+            result.add(value);
+            if (CacheUtil.isNullOrBlank(value) && !CacheUtil.isNullValue(rawValue)) {
+                missKeys.add(keys.get(i));
+            }
+        }
+        if (missKeys.isEmpty()) {
+            return result;
+        }
+        // 未命中的 Key 一次批量加载，并通过管道一次写回缓存
+        long startTime = System.nanoTime();
+        Map<String, T> loadedMap;
+        try {
+            loadedMap = Optional.ofNullable(cacheBatchLoader.load(new ArrayList<>(missKeys))).orElseGet(Map::of);
+        } catch (Throwable ex) {
+            cacheMetrics.recordLoad(missKeys.iterator().next(), System.nanoTime() - startTime, "error");
+            throw ex;
+        }
+        cacheMetrics.recordLoad(missKeys.iterator().next(), System.nanoTime() - startTime, loadedMap.isEmpty() ? "empty" : "success");
+        boolean nullValueEnabled = Boolean.TRUE.equals(redisProperties.getNullValueEnabled());
+        if (loadedMap.isEmpty() && !nullValueEnabled) {
+            return result;
+        }
+        valueRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                missKeys.forEach(key -> {
+                    T value = loadedMap.get(key);
+                    if (!CacheUtil.isNullOrBlank(value)) {
+                        operations.opsForValue().set(key, cacheValueCodecManager.encode(key, value), timeout, timeUnit);
+                    } else if (nullValueEnabled) {
+                        operations.opsForValue().set(key, NULL_VALUE_BYTES, redisProperties.getNullValueTimeout(), TimeUnit.MILLISECONDS);
+                    }
+                });
+                return null;
+            }
+        });
+        for (int i = 0; i < keys.size(); i++) {
+            if (missKeys.contains(keys.get(i))) {
+                result.set(i, loadedMap.get(keys.get(i)));
+            }
         }
         return result;
     }
@@ -157,8 +352,81 @@ public class StringRedisTemplateProxy implements DistributedCache {
 
     @Override
     public void put(String key, Object value, long timeout, TimeUnit timeUnit) {
-        String actual = value instanceof String ? (String) value : JSON.toJSONString(value);
-        stringRedisTemplate.opsForValue().set(key, actual, timeout, timeUnit);
+        byte[] actual = cacheValueCodecManager.encode(key, value);
+        valueRedisTemplate.opsForValue().set(key, actual, timeout, timeUnit);
+        markWritten(key);
+        cacheMetrics.recordPut(key, actual);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(String key, Class<T> clazz) {
+        return getRawAsync(key).thenApply(value -> parseValue(value, clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> multiGetAsync(List<String> keys, Class<T> clazz) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        String[] actualKeys = keys.stream().map(each -> redisProperties.getPrefix() + each).toArray(String[]::new);
+        return redissonClient.getBuckets(ByteArrayCodec.INSTANCE).<byte[]>getAsync(actualKeys).toCompletableFuture().thenApply(valueMap -> {
+            List<T> result = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] value = valueMap.get(actualKeys[i]);
+                cacheMetrics.recordGet(keys.get(i), value);
+                result.add(parseValue(value, clazz));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> safeGetAsync(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit) {
+        return getRawAsync(key).thenCompose(value -> {
+            if (CacheUtil.isNullValue(value)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            T result = parseValue(value, clazz);
+            if (!CacheUtil.isNullOrBlank(result)) {
+                return CompletableFuture.completedFuture(result);
+            }
+            // 未命中时在加载线程池中执行同步安全获取，复用单飞加载、分布式锁以及空值缓存逻辑，避免阻塞 Redisson 事件循环线程
+            return CompletableFuture.supplyAsync(() -> safeGet(key, clazz, cacheLoader, timeout, timeUnit), getAsyncLoadExecutor());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(String key, Object value) {
+        return putAsync(key, value, redisProperties.getValueTimeout(), redisProperties.getValueTimeUnit());
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(String key, Object value, long timeout, TimeUnit timeUnit) {
+        byte[] actual = cacheValueCodecManager.encode(key, value);
+        markWritten(key);
+        cacheMetrics.recordPut(key, actual);
+        return getBucket(key).setAsync(actual, timeout, timeUnit).toCompletableFuture();
+    }
+
+    @Override
+    public void multiPut(Map<String, ?> keyValues, long timeout, TimeUnit timeUnit) {
+        if (keyValues.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> actualKeyValues = new LinkedHashMap<>(keyValues.size() * 2);
+        keyValues.forEach((key, value) -> actualKeyValues.put(key, cacheValueCodecManager.encode(key, value)));
+        valueRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                actualKeyValues.forEach((key, value) -> operations.opsForValue().set(key, value, timeout, timeUnit));
+                return null;
+            }
+        });
+        actualKeyValues.forEach((key, value) -> {
+            markWritten(key);
+            cacheMetrics.recordPut(key, value);
+        });
     }
 
     @Override
@@ -190,8 +458,21 @@ public class StringRedisTemplateProxy implements DistributedCache {
     }
 
     private <T> T loadAndSet(String key, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit, boolean safeFlag, RBloomFilter<String> bloomFilter) {
-        T result = cacheLoader.load();
+        long startTime = System.nanoTime();
+        T result;
+        try {
+            result = cacheLoader.load();
+        } catch (Throwable ex) {
+            cacheMetrics.recordLoad(key, System.nanoTime() - startTime, "error");
+            throw ex;
+        }
+        long loadCost = System.nanoTime() - startTime;
+        loadCostCache.put(key, TimeUnit.NANOSECONDS.toMillis(loadCost));
+        cacheMetrics.recordLoad(key, loadCost, CacheUtil.isNullOrBlank(result) ? "empty" : "success");
         if (CacheUtil.isNullOrBlank(result)) {
+            if (Boolean.TRUE.equals(redisProperties.getNullValueEnabled())) {
+                valueRedisTemplate.opsForValue().set(key, NULL_VALUE_BYTES, redisProperties.getNullValueTimeout(), TimeUnit.MILLISECONDS);
+            }
             return result;
         }
         if (safeFlag) {
@@ -201,4 +482,237 @@ public class StringRedisTemplateProxy implements DistributedCache {
         }
         return result;
     }
+
+    private <T> byte[] getAndRefreshAhead(String key, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit, RBloomFilter<String> bloomFilter) {
+        // 通过管道一次获取缓存值以及剩余过期时间
+        List<Object> values = valueRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.opsForValue().get(key);
+                operations.getExpire(key, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+        byte[] result = (byte[]) values.get(0);
+        Long remainingTime = (Long) values.get(1);
+        cacheMetrics.recordGet(key, result);
+        if (result != null && result.length > 0 && !CacheUtil.isNullValue(result) && remainingTime != null && remainingTime > 0 && shouldRefreshAhead(key, remainingTime)) {
+            refreshAhead(key, cacheLoader, timeout, timeUnit, bloomFilter);
+        }
+        return result;
+    }
+
+    /**
+     * XFetch：加载耗时 * 系数 * -ln(random) 大于等于剩余过期时间时提前刷新，越临近过期、加载越慢，刷新概率越高
+     */
+    private boolean shouldRefreshAhead(String key, long remainingTime) {
+        long loadCost = Optional.ofNullable(loadCostCache.getIfPresent(key)).orElse(redisProperties.getRefreshAheadDefaultLoadCost());
+        return -loadCost * redisProperties.getRefreshAheadBeta() * Math.log(ThreadLocalRandom.current().nextDouble()) >= remainingTime;
+    }
+
+    private <T> void refreshAhead(String key, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit, RBloomFilter<String> bloomFilter) {
+        if (!refreshAheadKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshAheadExecutor.execute(() -> {
+                // 其它实例正在加载时跳过本次刷新
+                RLock lock = redissonClient.getLock(SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX + key);
+                if (!lock.tryLock()) {
+                    refreshAheadKeys.remove(key);
+                    return;
+                }
+                try {
+                    T result = loadAndSet(key, cacheLoader, timeout, timeUnit, true, bloomFilter);
+                    if (!CacheUtil.isNullOrBlank(result)) {
+                        rememberStaleValue(key, result, true);
+                    }
+                } catch (Throwable ex) {
+                    log.error("提前刷新缓存失败，Key：{}", key, ex);
+                } finally {
+                    lock.unlock();
+                    refreshAheadKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshAheadKeys.remove(key);
+        }
+    }
+
+    private CompletableFuture<byte[]> getRawAsync(String key) {
+        return getBucket(key).getAsync().toCompletableFuture().thenApply(value -> {
+            cacheMetrics.recordGet(key, value);
+            return value;
+        });
+    }
+
+    private RBucket<byte[]> getBucket(String key) {
+        return redissonClient.getBucket(redisProperties.getPrefix() + key, ByteArrayCodec.INSTANCE);
+    }
+
+    @Override
+    public void destroy() {
+        ThreadPoolExecutor executor;
+        synchronized (this) {
+            destroyed = true;
+            executor = asyncLoadExecutor;
+        }
+        if (refreshAheadExecutor != null) {
+            refreshAheadExecutor.shutdownNow();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ThreadPoolExecutor getAsyncLoadExecutor() {
+        ThreadPoolExecutor executor = asyncLoadExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                if (destroyed) {
+                    throw new RejectedExecutionException("缓存异步加载线程池已关闭");
+                }
+                executor = asyncLoadExecutor;
+                if (executor == null) {
+                    int processors = Runtime.getRuntime().availableProcessors();
+                    executor = buildExecutor("cache-async-load-", processors, processors * 2);
+                    asyncLoadExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private ThreadPoolExecutor buildExecutor(String threadNamePrefix, int corePoolSize, int maximumPoolSize) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                corePoolSize,
+                maximumPoolSize,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadNamePrefix + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * 读取 Redis 原始值，热点且近期无写入的 Key 从本地缓存读取
+     */
+    private byte[] getValue(String key) {
+        byte[] result;
+        if (hotKeyDetector == null || !hotKeyDetector.record(key) || recentlyWrittenKeyCache.getIfPresent(key) != null) {
+            result = valueRedisTemplate.opsForValue().get(key);
+        } else {
+            result = hotValueCache.get(key, each -> valueRedisTemplate.opsForValue().get(each));
+        }
+        cacheMetrics.recordGet(key, result);
+        return result;
+    }
+
+    private void markWritten(String key) {
+        if (hotKeyDetector != null) {
+            recentlyWrittenKeyCache.put(key, Boolean.TRUE);
+            hotValueCache.invalidate(key);
+        }
+    }
+
+    private <T> T parseValue(byte[] value, Class<T> clazz) {
+        if (value == null || CacheUtil.isNullValue(value)) {
+            return null;
+        }
+        return cacheValueCodecManager.decode(value, clazz);
+    }
+
+    private static RedisTemplate<String, byte[]> buildValueRedisTemplate(StringRedisTemplate stringRedisTemplate) {
+        RedisTemplate<String, byte[]> result = new RedisTemplate<>();
+        result.setConnectionFactory(stringRedisTemplate.getRequiredConnectionFactory());
+        result.setKeySerializer(stringRedisTemplate.getKeySerializer());
+        result.setValueSerializer(RedisSerializer.byteArray());
+        result.setHashKeySerializer(stringRedisTemplate.getHashKeySerializer());
+        result.setHashValueSerializer(RedisSerializer.byteArray());
+        result.afterPropertiesSet();
+        return result;
+    }
+
+    private <T> T lockAndLoad(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit,
+                              RBloomFilter<String> bloomFilter, CacheGetIfAbsent<String> cacheGetIfAbsent) {
+        RLock lock = redissonClient.getLock(SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX + key);
+        boolean locked;
+        long startTime = System.nanoTime();
+        try {
+            locked = lock.tryLock(redisProperties.getSafeGetLockTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            locked = false;
+        }
+        cacheMetrics.recordLockWait(key, System.nanoTime() - startTime, locked);
+        T result;
+        if (!locked) {
+            // 获取分布式锁超时，优先返回最近一次的缓存值，其次再次查询缓存，都不存在时直接加载
+            if ((result = getStaleValue(key, clazz)) != null) {
+                return result;
+            }
+            byte[] value = valueRedisTemplate.opsForValue().get(key);
+            if (CacheUtil.isNullValue(value) || !CacheUtil.isNullOrBlank(result = parseValue(value, clazz))) {
+                return result;
+            }
+            return loadAndSet(key, cacheLoader, timeout, timeUnit, true, bloomFilter);
+        }
+        try {
+            // 双重判定锁，减轻获得分布式锁后线程访问数据库压力；其它线程已写入空值占位符时直接返回空
+            byte[] value = valueRedisTemplate.opsForValue().get(key);
+            if (CacheUtil.isNullValue(value)) {
+                Optional.ofNullable(cacheGetIfAbsent).ifPresent(each -> each.execute(key));
+                return null;
+            }
+            if (CacheUtil.isNullOrBlank(result = parseValue(value, clazz))) {
+                // 如果访问 cacheLoader 加载数据为空，执行后置函数操作
+                if (CacheUtil.isNullOrBlank(result = loadAndSet(key, cacheLoader, timeout, timeUnit, true, bloomFilter))) {
+                    Optional.ofNullable(cacheGetIfAbsent).ifPresent(each -> each.execute(key));
+                    return result;
+                }
+            }
+            rememberStaleValue(key, result, true);
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    private <T> T awaitSingleFlight(String key, Class<T> clazz, CompletableFuture<Object> inflightFuture) {
+        // 加载线程获取分布式锁有超时时间，等待时间不会超过分布式锁等待时间与加载时间之和
+        Object value;
+        try {
+            value = inflightFuture.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw ex;
+        }
+        if (value == null || clazz.isInstance(value)) {
+            return clazz.cast(value);
+        }
+        // 相同 Key 以不同类型获取时，重新从缓存中按照当前类型解析
+        return get(key, clazz);
+    }
+
+    private <T> T getStaleValue(String key, Class<T> clazz) {
+        Object value = staleValueCache.getIfPresent(key);
+        return clazz.isInstance(value) ? clazz.cast(value) : null;
+    }
+
+    private void rememberStaleValue(String key, Object value, boolean overwrite) {
+        if (overwrite) {
+            staleValueCache.put(key, value);
+        } else {
+            staleValueCache.asMap().putIfAbsent(key, value);
+        }
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.codec;
+
+/**
+ * 缓存值编解码器
+ * 可通过注册该类型的 Spring Bean 扩展自定义编码，编码标识写入缓存值头部，需保证全局唯一
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public interface CacheValueCodec {
+
+    /**
+     * 编码名称，用于配置文件中按 Key 前缀选择编码
+     */
+    String getName();
+
+    /**
+     * 编码标识，写入缓存值头部用于解码时识别编码
+     */
+    byte getId();
+
+    /**
+     * 编码缓存值
+     *
+     * @param value 缓存值
+     * @return 编码后字节数组
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码缓存值
+     *
+     * @param bytes 编码后字节数组
+     * @param clazz 缓存值类型
+     * @return 缓存值
+     */
+    <T> T decode(byte[] bytes, Class<T> clazz);
+}
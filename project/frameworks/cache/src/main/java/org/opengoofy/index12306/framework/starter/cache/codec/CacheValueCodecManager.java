@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.codec;
+
+import org.opengoofy.index12306.framework.starter.cache.config.CacheCodecProperties;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 缓存值编解码管理器
+ * 按照 Key 逻辑前缀选择编码，编码后字节数达到阈值时压缩
+ * 非 JSON 编码或压缩后的缓存值以 0xC1 开头，后跟编码标识以及压缩标记；0xC1 不会出现在合法 UTF-8 字符串首字节，
+ * 不带头部的缓存值一律按照 JSON 解码，灰度切换编码期间历史 JSON 数据仍可正常读取
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class CacheValueCodecManager {
+
+    private static final byte MAGIC = (byte) 0xC1;
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final int HEADER_LENGTH = 3;
+    private static final int BUFFER_SIZE = 1024;
+
+    private final CacheCodecProperties codecProperties;
+    private final CacheValueCodec jsonCodec = new JsonCacheValueCodec();
+    private final CacheValueCodec defaultCodec;
+    private final Map<String, CacheValueCodec> codecNameMap = new HashMap<>();
+    private final Map<Byte, CacheValueCodec> codecIdMap = new HashMap<>();
+    private final Map<String, CacheValueCodec> prefixCodecMap = new HashMap<>();
+
+    /**
+     * @param codecProperties 编码配置
+     * @param customCodecs    自定义编码
+     */
+    public CacheValueCodecManager(CacheCodecProperties codecProperties, List<CacheValueCodec> customCodecs) {
+        this.codecProperties = codecProperties;
+        register(jsonCodec);
+        register(new JsonbCacheValueCodec());
+        customCodecs.forEach(this::register);
+        this.defaultCodec = getCodec(codecProperties.getDefaultCodec());
+        codecProperties.getPrefixCodecs().forEach((prefix, codecName) -> prefixCodecMap.put(prefix, getCodec(codecName)));
+    }
+
+    /**
+     * 编码缓存值
+     *
+     * @param key   缓存 Key
+     * @param value 缓存值
+     * @return 写入 Redis 的字节数组
+     */
+    public byte[] encode(String key, Object value) {
+        CacheValueCodec codec = prefixCodecMap.getOrDefault(CacheUtil.resolveKeyPrefix(key), defaultCodec);
+        byte[] payload = codec.encode(value);
+        if (Boolean.TRUE.equals(codecProperties.getCompressEnabled()) && payload.length >= codecProperties.getCompressThreshold()) {
+            byte[] compressed = compress(payload);
+            if (compressed.length + HEADER_LENGTH < payload.length) {
+                return withHeader(codec, FLAG_COMPRESSED, compressed);
+            }
+        }
+        // JSON 编码不写入头部，保持与历史数据以及直接通过 StringRedisTemplate 读取的方式兼容
+        return codec == jsonCodec ? payload : withHeader(codec, (byte) 0, payload);
+    }
+
+    /**
+     * 解码缓存值
+     *
+     * @param bytes Redis 中的字节数组
+     * @param clazz 缓存值类型
+     * @return 缓存值
+     */
+    public <T> T decode(byte[] bytes, Class<T> clazz) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[0] != MAGIC) {
+            return jsonCodec.decode(bytes, clazz);
+        }
+        CacheValueCodec codec = codecIdMap.get(bytes[1]);
+        if (codec == null) {
+            throw new IllegalStateException("未知的缓存值编码标识：" + bytes[1]);
+        }
+        byte[] payload = new byte[bytes.length - HEADER_LENGTH];
+        System.arraycopy(bytes, HEADER_LENGTH, payload, 0, payload.length);
+        if ((bytes[2] & FLAG_COMPRESSED) != 0) {
+            payload = decompress(payload);
+        }
+        return codec.decode(payload, clazz);
+    }
+
+    private void register(CacheValueCodec codec) {
+        CacheValueCodec existing = codecIdMap.putIfAbsent(codec.getId(), codec);
+        if (existing != null) {
+            throw new IllegalStateException(String.format("缓存值编码标识重复：%s、%s", existing.getName(), codec.getName()));
+        }
+        codecNameMap.put(codec.getName(), codec);
+    }
+
+    private CacheValueCodec getCodec(String name) {
+        CacheValueCodec codec = codecNameMap.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("未找到缓存值编码：" + name);
+        }
+        return codec;
+    }
+
+    private static byte[] withHeader(CacheValueCodec codec, byte flags, byte[] payload) {
+        byte[] result = new byte[payload.length + HEADER_LENGTH];
+        result[0] = MAGIC;
+        result[1] = codec.getId();
+        result[2] = flags;
+        System.arraycopy(payload, 0, result, HEADER_LENGTH, payload.length);
+        return result;
+    }
+
+    /**
+     * 使用最快压缩级别，优先降低 CPU 开销
+     */
+    private static byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 2);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("缓存值解压失败，数据不完整");
+                }
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("缓存值解压失败", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
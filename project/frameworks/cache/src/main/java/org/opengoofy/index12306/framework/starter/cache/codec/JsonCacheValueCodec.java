@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.codec;
+
+import com.alibaba.fastjson2.JSON;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.FastJson2Util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON 缓存值编解码器
+ * 字符串原样写入，其余对象序列化为 JSON，与历史缓存数据格式一致
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class JsonCacheValueCodec implements CacheValueCodec {
+
+    public static final String NAME = "json";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte getId() {
+        return 0;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return value instanceof String ? ((String) value).getBytes(StandardCharsets.UTF_8) : JSON.toJSONBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> clazz) {
+        if (String.class.isAssignableFrom(clazz)) {
+            return (T) new String(bytes, StandardCharsets.UTF_8);
+        }
+        return JSON.parseObject(bytes, FastJson2Util.buildType(clazz));
+    }
+}
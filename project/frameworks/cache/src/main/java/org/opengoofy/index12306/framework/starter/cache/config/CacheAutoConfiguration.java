@@ -17,22 +17,36 @@
 
 package org.opengoofy.index12306.framework.starter.cache.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
+import org.opengoofy.index12306.framework.starter.cache.CaffeineRedisMultistageCache;
+import org.opengoofy.index12306.framework.starter.cache.MultistageCache;
 import org.opengoofy.index12306.framework.starter.cache.RedisKeySerializer;
 import org.opengoofy.index12306.framework.starter.cache.StringRedisTemplateProxy;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodec;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodecManager;
+import org.opengoofy.index12306.framework.starter.cache.hotkey.HotKeyDetector;
+import org.opengoofy.index12306.framework.starter.cache.hotkey.HotKeyEndpoint;
+import org.opengoofy.index12306.framework.starter.cache.metrics.CacheMetrics;
 import org.redisson.api.RBloomFilter;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.util.stream.Collectors;
+
 /**
  * 缓存配置自动装配
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
 @AllArgsConstructor
-@EnableConfigurationProperties({RedisDistributedProperties.class, BloomFilterPenetrateProperties.class})
+@EnableConfigurationProperties({RedisDistributedProperties.class, BloomFilterPenetrateProperties.class, MultistageCacheProperties.class, HotKeyProperties.class,
+        CacheCodecProperties.class})
 public class CacheAutoConfiguration {
 
     private final RedisDistributedProperties redisDistributedProperties;
@@ -58,12 +72,60 @@ public class CacheAutoConfiguration {
         return cachePenetrationBloomFilter;
     }
 
+    /**
+     * 热点 Key 探测器
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = HotKeyProperties.PREFIX, name = "enabled", havingValue = "true")
+    public HotKeyDetector hotKeyDetector(HotKeyProperties hotKeyProperties) {
+        return new HotKeyDetector(hotKeyProperties);
+    }
+
+    /**
+     * 缓存值编解码管理器，支持通过注册 {@link CacheValueCodec} 类型 Bean 扩展编码
+     */
+    @Bean
+    public CacheValueCodecManager cacheValueCodecManager(CacheCodecProperties cacheCodecProperties, ObjectProvider<CacheValueCodec> cacheValueCodecs) {
+        return new CacheValueCodecManager(cacheCodecProperties, cacheValueCodecs.orderedStream().collect(Collectors.toList()));
+    }
+
     @Bean
     // 静态代理模式: Redis 客户端代理类增强
     public StringRedisTemplateProxy stringRedisTemplateProxy(RedisKeySerializer redisKeySerializer,
                                                              StringRedisTemplate stringRedisTemplate,
-                                                             RedissonClient redissonClient) {
+                                                             RedissonClient redissonClient,
+                                                             ObjectProvider<HotKeyDetector> hotKeyDetector,
+                                                             HotKeyProperties hotKeyProperties,
+                                                             ObjectProvider<MeterRegistry> meterRegistry,
+                                                             CacheValueCodecManager cacheValueCodecManager) {
         stringRedisTemplate.setKeySerializer(redisKeySerializer);
-        return new StringRedisTemplateProxy(stringRedisTemplate, redisDistributedProperties, redissonClient);
+        return new StringRedisTemplateProxy(stringRedisTemplate, redisDistributedProperties, redissonClient,
+                hotKeyDetector.getIfAvailable(), hotKeyProperties, new CacheMetrics(meterRegistry.getIfAvailable()),
+                cacheValueCodecManager);
+    }
+
+    /**
+     * 多级缓存，本地缓存未命中时访问 Redis 分布式缓存
+     */
+    @Bean
+    public MultistageCache multistageCache(StringRedisTemplateProxy stringRedisTemplateProxy,
+                                           RedissonClient redissonClient,
+                                           MultistageCacheProperties multistageCacheProperties) {
+        String invalidateTopicName = redisDistributedProperties.getPrefix() + multistageCacheProperties.getInvalidateTopic();
+        return new CaffeineRedisMultistageCache(stringRedisTemplateProxy, multistageCacheProperties, redissonClient, invalidateTopicName);
+    }
+
+    /**
+     * 热点 Key 监控端点，依赖 Spring Boot Actuator
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    @ConditionalOnProperty(prefix = HotKeyProperties.PREFIX, name = "enabled", havingValue = "true")
+    static class HotKeyEndpointConfiguration {
+
+        @Bean
+        public HotKeyEndpoint hotKeyEndpoint(HotKeyDetector hotKeyDetector) {
+            return new HotKeyEndpoint(hotKeyDetector);
+        }
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存值编码配置
+ * 未带编码头部的历史 JSON 数据始终可以读取；切换为非 JSON 编码或开启压缩前，需保证所有实例均已升级到支持编码头部的版本
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Data
+@ConfigurationProperties(prefix = CacheCodecProperties.PREFIX)
+public class CacheCodecProperties {
+
+    public static final String PREFIX = "framework.cache.codec";
+
+    /**
+     * 默认编码，json 与历史缓存数据格式一致
+     */
+    private String defaultCodec = "json";
+
+    /**
+     * 按照 Key 逻辑前缀指定编码，例如 train_station_stopover_detail: jsonb
+     * 指定非 JSON 编码的 Key 只能通过分布式缓存接口读取
+     */
+    private Map<String, String> prefixCodecs = new HashMap<>();
+
+    /**
+     * 是否开启压缩，开启后编码后字节数达到阈值的缓存值会被压缩，只能通过分布式缓存接口读取
+     */
+    private Boolean compressEnabled = false;
+
+    /**
+     * 压缩阈值，单位字节
+     */
+    private Integer compressThreshold = 4096;
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 热点 Key 探测配置
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Data
+@ConfigurationProperties(prefix = HotKeyProperties.PREFIX)
+public class HotKeyProperties {
+
+    public static final String PREFIX = "framework.cache.hot-key";
+
+    /**
+     * 是否开启热点 Key 探测以及本地缓存提升
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 滑动窗口时长，单位毫秒
+     */
+    private Long windowSize = 10000L;
+
+    /**
+     * 滑动窗口分段数量
+     */
+    private Integer windowBuckets = 10;
+
+    /**
+     * 滑动窗口内访问次数达到该阈值判定为热点 Key
+     */
+    private Long threshold = 1000L;
+
+    /**
+     * 采样率，每 sampleRate 次访问记录一次
+     */
+    private Integer sampleRate = 1;
+
+    /**
+     * 热点 Key 最大数量
+     */
+    private Integer maxHotKeys = 100;
+
+    /**
+     * Count-Min Sketch 宽度，会向上取整为 2 的幂
+     */
+    private Integer sketchWidth = 4096;
+
+    /**
+     * Count-Min Sketch 深度
+     */
+    private Integer sketchDepth = 4;
+
+    /**
+     * 热点 Key 本地缓存超时时间，单位毫秒
+     */
+    private Long localTimeout = 1000L;
+
+    /**
+     * 热点 Key 本地缓存最大容量
+     */
+    private Long localMaximumSize = 1000L;
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多级缓存配置
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Data
+@ConfigurationProperties(prefix = MultistageCacheProperties.PREFIX)
+public class MultistageCacheProperties {
+
+    public static final String PREFIX = "framework.cache.multistage";
+
+    /**
+     * 本地缓存最大容量
+     */
+    private Long localMaximumSize = 10000L;
+
+    /**
+     * 本地缓存超时时间，实际超时时间不超过分布式缓存超时时间
+     */
+    private Long localTimeout = 60000L;
+
+    /**
+     * 本地缓存时间单位
+     */
+    private TimeUnit localTimeUnit = TimeUnit.MILLISECONDS;
+
+    /**
+     * 本地缓存失效通知 Topic，实际名称会拼接分布式缓存 Key 前缀
+     */
+    private String invalidateTopic = "multistage_cache_invalidate";
+}
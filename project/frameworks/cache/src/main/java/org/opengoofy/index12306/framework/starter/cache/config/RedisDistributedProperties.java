@@ -51,4 +51,44 @@ public class RedisDistributedProperties {
      * 时间单位
      */
     private TimeUnit valueTimeUnit = TimeUnit.MILLISECONDS;
+
+    /**
+     * 是否开启空值缓存，加载结果为空时写入空值占位符，命中占位符直接返回空
+     */
+    private Boolean nullValueEnabled = false;
+
+    /**
+     * 空值缓存超时时间，单位毫秒
+     */
+    private Long nullValueTimeout = 60000L;
+
+    /**
+     * 安全获取缓存时等待分布式锁的超时时间，单位毫秒
+     */
+    private Long safeGetLockTimeout = 3000L;
+
+    /**
+     * 安全获取缓存降级值最大容量
+     */
+    private Long staleValueMaximumSize = 10000L;
+
+    /**
+     * 安全获取缓存降级值保留时间，单位毫秒
+     */
+    private Long staleValueTimeout = 600000L;
+
+    /**
+     * 是否开启安全获取缓存提前刷新，按照 XFetch 概率提前异步重新加载即将过期的缓存
+     */
+    private Boolean refreshAheadEnabled = false;
+
+    /**
+     * 提前刷新系数，值越大越早刷新
+     */
+    private Double refreshAheadBeta = 1.0D;
+
+    /**
+     * 未记录加载耗时的缓存默认加载耗时，单位毫秒
+     */
+    private Long refreshAheadDefaultLoadCost = 100L;
 }
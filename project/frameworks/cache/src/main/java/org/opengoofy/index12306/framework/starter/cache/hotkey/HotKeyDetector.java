@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.hotkey;
+
+import org.opengoofy.index12306.framework.starter.cache.config.HotKeyProperties;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 热点 Key 探测器
+ * 基于滑动窗口的 Count-Min Sketch 统计 Key 访问频率，窗口由多个分段组成，定时淘汰最旧分段
+ * 窗口内估算访问次数达到阈值的 Key 判定为热点 Key，热点 Key 数量有上限
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class HotKeyDetector implements DisposableBean {
+
+    private final HotKeyProperties hotKeyProperties;
+    private final int width;
+    private final int depth;
+    private final AtomicIntegerArray[] buckets;
+    private final Map<String, Long> hotKeyMap = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService rotateExecutor;
+    private volatile int currentBucket;
+
+    public HotKeyDetector(HotKeyProperties hotKeyProperties) {
+        this.hotKeyProperties = hotKeyProperties;
+        this.width = Integer.highestOneBit(Math.max(hotKeyProperties.getSketchWidth() - 1, 1)) << 1;
+        this.depth = hotKeyProperties.getSketchDepth();
+        this.buckets = new AtomicIntegerArray[hotKeyProperties.getWindowBuckets()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new AtomicIntegerArray(width * depth);
+        }
+        long rotatePeriod = Math.max(hotKeyProperties.getWindowSize() / buckets.length, 1L);
+        this.rotateExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-hot-key-window-rotate");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rotateExecutor.scheduleAtFixedRate(this::rotate, rotatePeriod, rotatePeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录 Key 访问
+     *
+     * @param key 缓存 Key
+     * @return 是否为热点 Key
+     */
+    public boolean record(String key) {
+        int sampleRate = hotKeyProperties.getSampleRate();
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return isHot(key);
+        }
+        AtomicIntegerArray bucket = buckets[currentBucket];
+        int hash = spread(key.hashCode());
+        int step = spread(hash * 0x9E3779B9) | 1;
+        for (int row = 0; row < depth; row++) {
+            bucket.addAndGet(row * width + ((hash + row * step) & (width - 1)), sampleRate);
+        }
+        long estimate = estimate(hash, step);
+        if (estimate >= hotKeyProperties.getThreshold()) {
+            if (hotKeyMap.size() < hotKeyProperties.getMaxHotKeys() || hotKeyMap.containsKey(key)) {
+                hotKeyMap.put(key, estimate);
+            }
+            return hotKeyMap.containsKey(key);
+        }
+        return false;
+    }
+
+    /**
+     * 判断 Key 是否为热点 Key
+     */
+    public boolean isHot(String key) {
+        return hotKeyMap.containsKey(key);
+    }
+
+    /**
+     * 查询热点 Key 集合，按照窗口内估算访问次数倒序排列
+     */
+    public List<HotKey> listHotKeys() {
+        List<HotKey> result = new ArrayList<>(hotKeyMap.size());
+        hotKeyMap.forEach((key, count) -> result.add(new HotKey(key, count)));
+        result.sort(Comparator.comparingLong(HotKey::count).reversed());
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        rotateExecutor.shutdownNow();
+    }
+
+    private void rotate() {
+        int next = (currentBucket + 1) % buckets.length;
+        AtomicIntegerArray bucket = buckets[next];
+        for (int i = 0; i < bucket.length(); i++) {
+            bucket.set(i, 0);
+        }
+        currentBucket = next;
+        // 窗口滑动后重新估算热点 Key，低于阈值的移除
+        hotKeyMap.replaceAll((key, count) -> {
+            int hash = spread(key.hashCode());
+            return estimate(hash, spread(hash * 0x9E3779B9) | 1);
+        });
+        hotKeyMap.values().removeIf(count -> count < hotKeyProperties.getThreshold());
+    }
+
+    private long estimate(int hash, int step) {
+        long result = 0L;
+        for (AtomicIntegerArray bucket : buckets) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                min = Math.min(min, bucket.get(row * width + ((hash + row * step) & (width - 1))));
+            }
+            result += min;
+        }
+        return result;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * 热点 Key 以及窗口内估算访问次数
+     */
+    public record HotKey(String key, long count) {
+    }
+}
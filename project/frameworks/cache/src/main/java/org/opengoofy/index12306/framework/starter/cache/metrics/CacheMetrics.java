@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存监控指标
+ * 按照缓存 Key 逻辑前缀统计命中、未命中、加载耗时、分布式锁等待时间以及缓存值大小，通过 Actuator 暴露
+ * 逻辑前缀解析规则见 {@link CacheUtil#resolveKeyPrefix(String)}
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class CacheMetrics {
+
+    private static final String METRIC_PREFIX = "index12306.cache";
+    private static final String KEY_SEPARATOR = ":";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counterMap = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timerMap = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaryMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry 指标注册中心，为空时不记录指标
+     */
+    public CacheMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 记录缓存读取结果
+     *
+     * @param key   缓存 Key
+     * @param value Redis 原始值
+     */
+    public void recordGet(String key, byte[] value) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String keyPrefix = CacheUtil.resolveKeyPrefix(key);
+        String result = value == null ? "miss" : CacheUtil.isNullValue(value) ? "null" : "hit";
+        counter(METRIC_PREFIX + ".gets", keyPrefix, result).increment();
+        if (value != null && !CacheUtil.isNullValue(value)) {
+            summary(keyPrefix).record(value.length);
+        }
+    }
+
+    /**
+     * 记录缓存写入
+     */
+    public void recordPut(String key, byte[] value) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String keyPrefix = CacheUtil.resolveKeyPrefix(key);
+        counter(METRIC_PREFIX + ".puts", keyPrefix, "success").increment();
+        summary(keyPrefix).record(value.length);
+    }
+
+    /**
+     * 记录缓存加载耗时
+     *
+     * @param result 加载结果，success、empty 或 error
+     */
+    public void recordLoad(String key, long nanos, String result) {
+        if (meterRegistry == null) {
+            return;
+        }
+        timer(METRIC_PREFIX + ".load", CacheUtil.resolveKeyPrefix(key), result).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录分布式锁等待时间
+     *
+     * @param acquired 是否获取到锁
+     */
+    public void recordLockWait(String key, long nanos, boolean acquired) {
+        if (meterRegistry == null) {
+            return;
+        }
+        timer(METRIC_PREFIX + ".lock.wait", CacheUtil.resolveKeyPrefix(key), acquired ? "acquired" : "timeout").record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter counter(String name, String keyPrefix, String result) {
+        return counterMap.computeIfAbsent(name + KEY_SEPARATOR + keyPrefix + KEY_SEPARATOR + result, each -> Counter.builder(name)
+                .tag("prefix", keyPrefix)
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+
+    private Timer timer(String name, String keyPrefix, String result) {
+        return timerMap.computeIfAbsent(name + KEY_SEPARATOR + keyPrefix + KEY_SEPARATOR + result, each -> Timer.builder(name)
+                .tag("prefix", keyPrefix)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary summary(String keyPrefix) {
+        return summaryMap.computeIfAbsent(keyPrefix, each -> DistributionSummary.builder(METRIC_PREFIX + ".value.size")
+                .baseUnit("bytes")
+                .tag("prefix", keyPrefix)
+                .register(meterRegistry));
+    }
+}
@@ -20,6 +20,8 @@ package org.opengoofy.index12306.framework.starter.cache.toolkit;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -31,6 +33,17 @@ public final class CacheUtil {
 
     private static final String SPLICING_OPERATOR = "_";
 
+    /**
+     * 空值缓存占位符，加载结果为空时写入，避免不存在的数据反复穿透到数据库
+     */
+    public static final String NULL_VALUE = "__index12306_cache_null__";
+
+    private static final byte[] NULL_VALUE_BYTES = NULL_VALUE.getBytes(StandardCharsets.UTF_8);
+
+    private static final String KEY_PREFIX_SEPARATOR = ":";
+
+    private static final String DEFAULT_KEY_PREFIX = "default";
+
     /**
      * 构建缓存标识
      *
@@ -51,4 +64,49 @@ public final class CacheUtil {
     public static boolean isNullOrBlank(Object cacheVal) {
         return cacheVal == null || (cacheVal instanceof String && Strings.isNullOrEmpty((String) cacheVal));
     }
+
+    /**
+     * 判断缓存值是否为空值占位符
+     *
+     * @param cacheVal
+     * @return
+     */
+    public static boolean isNullValue(Object cacheVal) {
+        return NULL_VALUE.equals(cacheVal);
+    }
+
+    /**
+     * 判断 Redis 原始字节数组是否为空值占位符
+     *
+     * @param cacheVal
+     * @return
+     */
+    public static boolean isNullValue(byte[] cacheVal) {
+        return Arrays.equals(NULL_VALUE_BYTES, cacheVal);
+    }
+
+    /**
+     * 获取空值占位符字节数组
+     *
+     * @return
+     */
+    public static byte[] getNullValueBytes() {
+        return NULL_VALUE_BYTES.clone();
+    }
+
+    /**
+     * 解析缓存 Key 逻辑前缀，取最后一个冒号之前的最后一段
+     * 例如 index12306-ticket-service:train_info:1 的逻辑前缀为 train_info
+     *
+     * @param key
+     * @return
+     */
+    public static String resolveKeyPrefix(String key) {
+        int endIndex = key.lastIndexOf(KEY_PREFIX_SEPARATOR);
+        if (endIndex <= 0) {
+            return DEFAULT_KEY_PREFIX;
+        }
+        int startIndex = key.lastIndexOf(KEY_PREFIX_SEPARATOR, endIndex - 1);
+        return key.substring(startIndex + 1, endIndex);
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.codec;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opengoofy.index12306.framework.starter.cache.config.CacheCodecProperties;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 缓存值编解码管理器测试
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class CacheValueCodecManagerTests {
+
+    private static final byte MAGIC = (byte) 0xC1;
+    private static final String JSON_KEY = "index12306-ticket-service:station_all:1";
+    private static final String JSONB_KEY = "index12306-ticket-service:train_info:1";
+
+    @Test
+    public void testJsonValueWithoutHeader() {
+        CacheValueCodecManager codecManager = buildCodecManager(false, 4096);
+        CacheValue value = new CacheValue("G1", 1L, List.of("北京南", "上海虹桥"));
+        byte[] bytes = codecManager.encode(JSON_KEY, value);
+        Assertions.assertArrayEquals(JSON.toJSONBytes(value), bytes);
+        Assertions.assertEquals(value, codecManager.decode(bytes, CacheValue.class));
+        // 历史数据以及直接通过 StringRedisTemplate 写入的字符串不带头部，按照 JSON 解码
+        byte[] stringBytes = codecManager.encode(JSON_KEY, "G1");
+        Assertions.assertArrayEquals("G1".getBytes(StandardCharsets.UTF_8), stringBytes);
+        Assertions.assertEquals("G1", codecManager.decode(stringBytes, String.class));
+        Assertions.assertNull(codecManager.decode(null, CacheValue.class));
+    }
+
+    @Test
+    public void testJsonbValueWithHeader() {
+        CacheValueCodecManager codecManager = buildCodecManager(false, 4096);
+        CacheValue value = new CacheValue("G1", 1L, List.of("北京南", "上海虹桥"));
+        byte[] bytes = codecManager.encode(JSONB_KEY, value);
+        Assertions.assertEquals(MAGIC, bytes[0]);
+        Assertions.assertEquals(new JsonbCacheValueCodec().getId(), bytes[1]);
+        Assertions.assertEquals(0, bytes[2]);
+        Assertions.assertEquals(value, codecManager.decode(bytes, CacheValue.class));
+    }
+
+    @Test
+    public void testCompressedValue() {
+        CacheValueCodecManager codecManager = buildCodecManager(true, 64);
+        CacheValue value = new CacheValue("G1".repeat(512), 1L, List.of("北京南", "上海虹桥"));
+        byte[] payload = JSON.toJSONBytes(value);
+        byte[] bytes = codecManager.encode(JSON_KEY, value);
+        Assertions.assertEquals(MAGIC, bytes[0]);
+        Assertions.assertEquals(new JsonCacheValueCodec().getId(), bytes[1]);
+        Assertions.assertEquals(1, bytes[2]);
+        Assertions.assertTrue(bytes.length < payload.length);
+        Assertions.assertEquals(value, codecManager.decode(bytes, CacheValue.class));
+        byte[] jsonbBytes = codecManager.encode(JSONB_KEY, value);
+        Assertions.assertEquals(new JsonbCacheValueCodec().getId(), jsonbBytes[1]);
+        Assertions.assertEquals(1, jsonbBytes[2]);
+        Assertions.assertEquals(value, codecManager.decode(jsonbBytes, CacheValue.class));
+    }
+
+    @Test
+    public void testRawValueBelowCompressThreshold() {
+        CacheValueCodecManager codecManager = buildCodecManager(true, 4096);
+        CacheValue value = new CacheValue("G1", 1L, List.of("北京南", "上海虹桥"));
+        byte[] bytes = codecManager.encode(JSON_KEY, value);
+        Assertions.assertArrayEquals(JSON.toJSONBytes(value), bytes);
+        Assertions.assertEquals(value, codecManager.decode(bytes, CacheValue.class));
+    }
+
+    @Test
+    public void testNullValueSentinel() {
+        CacheValueCodecManager codecManager = buildCodecManager(true, 1);
+        byte[] nullValueBytes = CacheUtil.getNullValueBytes();
+        Assertions.assertTrue(CacheUtil.isNullValue(nullValueBytes));
+        Assertions.assertNotEquals(MAGIC, nullValueBytes[0]);
+        // 空值占位符直接写入 Redis，读取时不会被识别为带头部的缓存值
+        Assertions.assertEquals(CacheUtil.NULL_VALUE, codecManager.decode(nullValueBytes, String.class));
+        Assertions.assertFalse(CacheUtil.isNullValue(codecManager.encode(JSONB_KEY, CacheUtil.NULL_VALUE)));
+    }
+
+    @Test
+    public void testUnknownCodecId() {
+        CacheValueCodecManager codecManager = buildCodecManager(false, 4096);
+        byte[] bytes = {MAGIC, 99, 0, '{', '}'};
+        Assertions.assertThrows(IllegalStateException.class, () -> codecManager.decode(bytes, CacheValue.class));
+    }
+
+    private static CacheValueCodecManager buildCodecManager(boolean compressEnabled, int compressThreshold) {
+        CacheCodecProperties codecProperties = new CacheCodecProperties();
+        codecProperties.setCompressEnabled(compressEnabled);
+        codecProperties.setCompressThreshold(compressThreshold);
+        codecProperties.getPrefixCodecs().put("train_info", JsonbCacheValueCodec.NAME);
+        return new CacheValueCodecManager(codecProperties, List.of());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheValue {
+
+        private String trainNumber;
+
+        private Long trainId;
+
+        private List<String> stations;
+    }
+}
@@ -36,7 +36,7 @@ import org.springframework.context.annotation.Bean;
  * 幂等自动装配
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
-@EnableConfigurationProperties(IdempotentProperties.class)
+@EnableConfigurationProperties({IdempotentProperties.class, IdempotentMQProperties.class})
 public class IdempotentAutoConfiguration {
 
     /**
@@ -88,7 +88,8 @@ public class IdempotentAutoConfiguration {
      */
     @Bean
     @ConditionalOnMissingBean
-    public IdempotentSpELByMQExecuteHandler idempotentSpELByMQExecuteHandler(DistributedCache distributedCache) {
-        return new IdempotentSpELByMQExecuteHandler(distributedCache);
+    public IdempotentSpELByMQExecuteHandler idempotentSpELByMQExecuteHandler(DistributedCache distributedCache,
+                                                                             IdempotentMQProperties idempotentMQProperties) {
+        return new IdempotentSpELByMQExecuteHandler(distributedCache, idempotentMQProperties);
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.idempotent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * MQ 场景幂等属性配置
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Data
+@ConfigurationProperties(prefix = IdempotentMQProperties.PREFIX)
+public class IdempotentMQProperties {
+
+    public static final String PREFIX = "framework.idempotent.mq";
+
+    /**
+     * 本地最近已消费消息窗口容量，小于等于 0 时关闭本地窗口
+     */
+    private Integer localWindowSize = 10000;
+
+    /**
+     * 本地最近已消费消息保留时间，单位秒
+     */
+    private Long localWindowTtl = 60L;
+
+    /**
+     * 已消费状态批量写入 Redis 的间隔，单位毫秒
+     */
+    private Long consumedFlushInterval = 10L;
+
+    /**
+     * 已消费状态单次批量写入 Redis 的最大数量
+     */
+    private Integer consumedFlushBatchSize = 256;
+}
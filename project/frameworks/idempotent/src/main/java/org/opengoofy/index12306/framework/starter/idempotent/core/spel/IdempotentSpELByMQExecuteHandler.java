@@ -17,12 +17,16 @@
 
 package org.opengoofy.index12306.framework.starter.idempotent.core.spel;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.opengoofy.index12306.framework.starter.bases.Singleton;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.idempotent.annotation.Idempotent;
+import org.opengoofy.index12306.framework.starter.idempotent.config.IdempotentMQProperties;
 import org.opengoofy.index12306.framework.starter.idempotent.core.AbstractIdempotentExecuteHandler;
 import org.opengoofy.index12306.framework.starter.idempotent.core.IdempotentAspect;
 import org.opengoofy.index12306.framework.starter.idempotent.core.IdempotentContext;
@@ -31,21 +35,61 @@ import org.opengoofy.index12306.framework.starter.idempotent.core.RepeatConsumpt
 import org.opengoofy.index12306.framework.starter.idempotent.enums.IdempotentMQConsumeStatusEnum;
 import org.opengoofy.index12306.framework.starter.idempotent.toolkit.LogUtil;
 import org.opengoofy.index12306.framework.starter.idempotent.toolkit.SpELUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 基于 SpEL 方法验证请求幂等性，适用于 MQ 场景
+ * 通过 Lua 脚本一次完成消费状态检查与标记，本地窗口拦截本实例最近已消费消息的重复投递，已消费状态异步批量写入 Redis
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
-@RequiredArgsConstructor
-public final class IdempotentSpELByMQExecuteHandler extends AbstractIdempotentExecuteHandler implements IdempotentSpELService {
+@Slf4j
+public final class IdempotentSpELByMQExecuteHandler extends AbstractIdempotentExecuteHandler implements IdempotentSpELService, InitializingBean, DisposableBean {
 
     private final DistributedCache distributedCache;
+    private final IdempotentMQProperties idempotentMQProperties;
+
+    /**
+     * 本实例最近已消费消息窗口，关闭时为 null
+     */
+    private final Cache<String, Boolean> consumedWindow;
+
+    /**
+     * 待写入 Redis 的已消费状态
+     */
+    private final Queue<ConsumedMark> pendingConsumedMarks = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService consumedFlushExecutor;
 
     private final static int TIMEOUT = 600;
     private final static String WRAPPER = "wrapper:spEL:MQ";
+    private final static String LUA_MQ_CONSUME_CHECK_PATH = "lua/idempotent_mq_consume_check.lua";
+
+    public IdempotentSpELByMQExecuteHandler(DistributedCache distributedCache, IdempotentMQProperties idempotentMQProperties) {
+        this.distributedCache = distributedCache;
+        this.idempotentMQProperties = idempotentMQProperties;
+        this.consumedWindow = idempotentMQProperties.getLocalWindowSize() > 0
+                ? Caffeine.newBuilder()
+                .maximumSize(idempotentMQProperties.getLocalWindowSize())
+                .expireAfterWrite(idempotentMQProperties.getLocalWindowTtl(), TimeUnit.SECONDS)
+                .build()
+                : null;
+    }
 
     @SneakyThrows
     @Override
@@ -58,11 +102,19 @@ public final class IdempotentSpELByMQExecuteHandler extends AbstractIdempotentEx
     @Override
     public void handler(IdempotentParamWrapper wrapper) {
         String uniqueKey = wrapper.getIdempotent().uniqueKeyPrefix() + wrapper.getLockKey();
-        Boolean setIfAbsent = ((StringRedisTemplate) distributedCache.getInstance())
-                .opsForValue()
-                .setIfAbsent(uniqueKey, IdempotentMQConsumeStatusEnum.CONSUMING.getCode(), TIMEOUT, TimeUnit.SECONDS);
-        if (setIfAbsent != null && !setIfAbsent) {
-            String consumeStatus = distributedCache.get(uniqueKey, String.class);
+        if (consumedWindow != null && consumedWindow.getIfPresent(uniqueKey) != null) {
+            LogUtil.getLog(wrapper.getJoinPoint()).warn("[{}] MQ repeated consumption, Status is completed.", uniqueKey);
+            throw new RepeatConsumptionException(false);
+        }
+        DefaultRedisScript<String> actual = Singleton.get(LUA_MQ_CONSUME_CHECK_PATH, () -> {
+            DefaultRedisScript<String> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_MQ_CONSUME_CHECK_PATH)));
+            redisScript.setResultType(String.class);
+            return redisScript;
+        });
+        String consumeStatus = ((StringRedisTemplate) distributedCache.getInstance())
+                .execute(actual, List.of(uniqueKey), IdempotentMQConsumeStatusEnum.CONSUMING.getCode(), String.valueOf(TIMEOUT));
+        if (consumeStatus != null) {
             boolean error = IdempotentMQConsumeStatusEnum.isError(consumeStatus);
             LogUtil.getLog(wrapper.getJoinPoint()).warn("[{}] MQ repeated consumption, {}.", uniqueKey, error ? "Wait for the client to delay consumption" : "Status is completed");
             throw new RepeatConsumptionException(error);
@@ -90,6 +142,13 @@ public final class IdempotentSpELByMQExecuteHandler extends AbstractIdempotentEx
         if (wrapper != null) {
             Idempotent idempotent = wrapper.getIdempotent();
             String uniqueKey = idempotent.uniqueKeyPrefix() + wrapper.getLockKey();
+            if (consumedWindow != null) {
+                consumedWindow.put(uniqueKey, Boolean.TRUE);
+            }
+            if (consumedFlushExecutor != null) {
+                pendingConsumedMarks.offer(new ConsumedMark(uniqueKey, idempotent.keyTimeout()));
+                return;
+            }
             try {
                 distributedCache.put(uniqueKey, IdempotentMQConsumeStatusEnum.CONSUMED.getCode(), idempotent.keyTimeout(), TimeUnit.SECONDS);
             } catch (Throwable ex) {
@@ -97,4 +156,60 @@ public final class IdempotentSpELByMQExecuteHandler extends AbstractIdempotentEx
             }
         }
     }
+
+    @Override
+    public void afterPropertiesSet() {
+        long consumedFlushInterval = idempotentMQProperties.getConsumedFlushInterval();
+        if (consumedFlushInterval <= 0) {
+            return;
+        }
+        consumedFlushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotent-mq-consumed-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        consumedFlushExecutor.scheduleWithFixedDelay(this::flushConsumedMarks, consumedFlushInterval, consumedFlushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (consumedFlushExecutor != null) {
+            consumedFlushExecutor.shutdown();
+            consumedFlushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            flushConsumedMarks();
+        }
+    }
+
+    /**
+     * 通过管道批量写入已消费状态，写入失败时仅记录日志，与单条写入失败的处理方式保持一致
+     */
+    private void flushConsumedMarks() {
+        int batchSize = Math.max(idempotentMQProperties.getConsumedFlushBatchSize(), 1);
+        List<ConsumedMark> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            ConsumedMark consumedMark;
+            while (batch.size() < batchSize && (consumedMark = pendingConsumedMarks.poll()) != null) {
+                batch.add(consumedMark);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                ((StringRedisTemplate) distributedCache.getInstance()).executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    public Object execute(RedisOperations operations) throws DataAccessException {
+                        batch.forEach(each -> operations.opsForValue().set(each.uniqueKey, IdempotentMQConsumeStatusEnum.CONSUMED.getCode(), each.keyTimeout, TimeUnit.SECONDS));
+                        return null;
+                    }
+                });
+            } catch (Throwable ex) {
+                log.error("Failed to set MQ anti-heavy token in batch, size: {}.", batch.size(), ex);
+            }
+        }
+    }
+
+    private record ConsumedMark(String uniqueKey, long keyTimeout) {
+    }
 }
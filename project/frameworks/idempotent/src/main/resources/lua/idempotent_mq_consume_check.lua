@@ -0,0 +1,10 @@
+-- KEYS[1]: MQ 幂等 Key
+-- ARGV[1]: 消费中状态
+-- ARGV[2]: 幂等 Key 过期时间，单位秒
+-- 幂等 Key 已存在时返回当前消费状态，不存在时标记为消费中并返回空
+local consumeStatus = redis.call('get', KEYS[1])
+if consumeStatus then
+    return consumeStatus
+end
+redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[2])
+return nil
@@ -59,6 +59,14 @@ public class TicketOrderController {
         return Results.success(orderService.queryTicketOrderByOrderSn(orderSn));
     }
 
+    /**
+     * 根据订单号集合批量查询车票订单
+     */
+    @PostMapping("/api/order-service/order/ticket/batch-query")
+    public Result<List<TicketOrderDetailRespDTO>> queryTicketOrderByOrderSns(@RequestBody List<String> orderSns) {
+        return Results.success(orderService.queryTicketOrderByOrderSns(orderSns));
+    }
+
     /**
      * 根据子订单记录id查询车票子订单详情
      */
@@ -27,6 +27,8 @@ import org.opengoofy.index12306.biz.orderservice.dto.resp.TicketOrderDetailSelfR
 import org.opengoofy.index12306.biz.orderservice.mq.event.PayResultCallbackOrderEvent;
 import org.opengoofy.index12306.framework.starter.convention.page.PageResponse;
 
+import java.util.List;
+
 /**
  * 订单接口层
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
@@ -41,6 +43,14 @@ public interface OrderService {
      */
     TicketOrderDetailRespDTO queryTicketOrderByOrderSn(String orderSn);
 
+    /**
+     * 跟据订单号集合批量查询车票订单
+     *
+     * @param orderSns 订单号集合
+     * @return 订单详情集合，不存在的订单号不返回
+     */
+    List<TicketOrderDetailRespDTO> queryTicketOrderByOrderSns(List<String> orderSns);
+
     /**
      * 跟据用户名分页查询车票订单
      *
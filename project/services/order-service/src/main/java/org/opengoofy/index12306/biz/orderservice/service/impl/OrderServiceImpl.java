@@ -17,6 +17,7 @@
 
 package org.opengoofy.index12306.biz.orderservice.service.impl;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.text.StrBuilder;
 import com.alibaba.fastjson2.JSON;
@@ -67,8 +68,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * 订单服务接口层实现
@@ -99,6 +103,31 @@ public class OrderServiceImpl implements OrderService {
         result.setPassengerDetails(BeanUtil.convert(orderItemDOList, TicketOrderPassengerDetailRespDTO.class));
         return result;
     }
+    // 根据订单号集合批量查询车票订单，订单与子订单各查询一次
+    @Override
+    public List<TicketOrderDetailRespDTO> queryTicketOrderByOrderSns(List<String> orderSns) {
+        if (CollUtil.isEmpty(orderSns)) {
+            return Collections.emptyList();
+        }
+        LambdaQueryWrapper<OrderDO> queryWrapper = Wrappers.lambdaQuery(OrderDO.class)
+                .in(OrderDO::getOrderSn, orderSns);
+        List<OrderDO> orderDOList = orderMapper.selectList(queryWrapper);
+        if (CollUtil.isEmpty(orderDOList)) {
+            return Collections.emptyList();
+        }
+        LambdaQueryWrapper<OrderItemDO> orderItemQueryWrapper = Wrappers.lambdaQuery(OrderItemDO.class)
+                .in(OrderItemDO::getOrderSn, orderSns);
+        Map<String, List<OrderItemDO>> orderItemMap = orderItemMapper.selectList(orderItemQueryWrapper).stream()
+                .collect(Collectors.groupingBy(OrderItemDO::getOrderSn));
+        return orderDOList.stream()
+                .map(each -> {
+                    TicketOrderDetailRespDTO result = BeanUtil.convert(each, TicketOrderDetailRespDTO.class);
+                    List<OrderItemDO> orderItemDOList = orderItemMap.getOrDefault(each.getOrderSn(), Collections.emptyList());
+                    result.setPassengerDetails(BeanUtil.convert(orderItemDOList, TicketOrderPassengerDetailRespDTO.class));
+                    return result;
+                })
+                .toList();
+    }
     // 分页查询车票
     @Override
     public PageResponse<TicketOrderDetailRespDTO> pageTicketOrder(TicketOrderPageQueryReqDTO requestParam) {
@@ -2,9 +2,11 @@
 package org.opengoofy.index12306.biz.ticketservice.canal;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.collection.ListUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.CanalExecuteStrategyMarkEnum;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
 import org.opengoofy.index12306.biz.ticketservice.mq.event.CanalBinlogEvent;
 import org.opengoofy.index12306.biz.ticketservice.remote.TicketOrderRemoteService;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRespDTO;
@@ -20,9 +22,11 @@ import org.springframework.stereotype.Component;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * 订单关闭或取消后置处理组件
+ * 批量查询关闭订单详情，按照列车合并座位解锁以及令牌回滚
  */
 @Slf4j
 @Component
@@ -33,6 +37,8 @@ public class OrderCloseCacheAndTokenUpdateHandler implements AbstractExecuteStra
     private final SeatService seatService;
     private final TicketAvailabilityTokenBucket ticketAvailabilityTokenBucket;
 
+    private static final int ORDER_BATCH_QUERY_SIZE = 200;
+
     @Override
     public void execute(CanalBinlogEvent message) {
         List<Map<String, Object>> messageDataList = message.getData().stream()
@@ -42,18 +48,35 @@ public class OrderCloseCacheAndTokenUpdateHandler implements AbstractExecuteStra
         if (CollUtil.isEmpty(messageDataList)) {
             return;
         }
-        for (Map<String, Object> each : messageDataList) {
-            Result<TicketOrderDetailRespDTO> orderDetailResult = ticketOrderRemoteService.queryTicketOrderByOrderSn(each.get("order_sn").toString());
-            TicketOrderDetailRespDTO orderDetailResultData = orderDetailResult.getData();
-            if (orderDetailResult.isSuccess() && orderDetailResultData != null) {
-                String trainId = String.valueOf(orderDetailResultData.getTrainId());
-                List<TicketOrderPassengerDetailRespDTO> passengerDetails = orderDetailResultData.getPassengerDetails();
-                seatService.unlock(trainId, orderDetailResultData.getDeparture(), orderDetailResultData.getArrival(), BeanUtil.convert(passengerDetails, TrainPurchaseTicketRespDTO.class));
-                ticketAvailabilityTokenBucket.rollbackInBucket(orderDetailResultData);
+        List<String> orderSnList = messageDataList.stream()
+                .map(each -> each.get("order_sn").toString())
+                .distinct()
+                .toList();
+        for (List<String> orderSns : ListUtil.partition(orderSnList, ORDER_BATCH_QUERY_SIZE)) {
+            Result<List<TicketOrderDetailRespDTO>> orderDetailResult = ticketOrderRemoteService.queryTicketOrderByOrderSns(orderSns);
+            List<TicketOrderDetailRespDTO> orderDetailResultData = orderDetailResult.getData();
+            if (!orderDetailResult.isSuccess() || CollUtil.isEmpty(orderDetailResultData)) {
+                continue;
             }
+            orderDetailResultData.stream()
+                    .collect(Collectors.groupingBy(each -> String.valueOf(each.getTrainId())))
+                    .forEach(this::unlockAndRollback);
         }
     }
 
+    private void unlockAndRollback(String trainId, List<TicketOrderDetailRespDTO> orderDetails) {
+        // 同一列车出发站到达站相同的订单合并为一次座位解锁
+        orderDetails.stream()
+                .collect(Collectors.groupingBy(each -> new RouteDTO(each.getDeparture(), each.getArrival())))
+                .forEach((route, routeOrderDetails) -> {
+                    List<TicketOrderPassengerDetailRespDTO> passengerDetails = routeOrderDetails.stream()
+                            .flatMap(each -> each.getPassengerDetails().stream())
+                            .toList();
+                    seatService.unlock(trainId, route.getStartStation(), route.getEndStation(), BeanUtil.convert(passengerDetails, TrainPurchaseTicketRespDTO.class));
+                });
+        ticketAvailabilityTokenBucket.rollbackInBucket(trainId, orderDetails);
+    }
+
     @Override
     public String mark() {
         return CanalExecuteStrategyMarkEnum.T_ORDER.getActualTable();
@@ -0,0 +1,219 @@
+package org.opengoofy.index12306.biz.ticketservice.canal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_REMAINING_TICKET_BINLOG_APPLIED;
+
+/**
+ * 列车余票缓存更新微批处理组件
+ * 多个消费线程提交的余票变更在短时间窗口内攒为一批，通过一次管道写入 Redis
+ * 每条消息的每趟列车变更由一次 Lua 调用原子应用，并以消息标识写入应用标记，消息重复投递时不会重复累加余票
+ * 提交方等待所在批次写入完成后才返回，消息在余票变更真正生效后才会被确认；写入失败时整批消息重新消费，已应用的消息由应用标记跳过
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketAvailabilityCacheUpdateBatcher implements InitializingBean, DisposableBean {
+
+    private final DistributedCache distributedCache;
+
+    private static final String LUA_TRAIN_STATION_REMAINING_TICKET_BINLOG_APPLY_PATH = "lua/train_station_remaining_ticket_binlog_apply.lua";
+
+    @Value("${ticket.availability.cache-update.batch.max-wait-millis:5}")
+    private long maxWaitMillis;
+
+    @Value("${ticket.availability.cache-update.batch.max-events:512}")
+    private int maxEvents;
+
+    @Value("${ticket.availability.cache-update.batch.submit-timeout-millis:3000}")
+    private long submitTimeoutMillis;
+
+    @Value("${ticket.availability.cache-update.batch.applied-ttl-seconds:7200}")
+    private long appliedTtlSeconds;
+
+    @Value("${framework.cache.redis.prefix:}")
+    private String cacheRedisPrefix;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchCondition = lock.newCondition();
+    private Batch currentBatch = new Batch();
+    private boolean running = true;
+    private Thread flushThread;
+    private byte[] applyScript;
+
+    /**
+     * 提交单条消息的余票变更，并等待所在批次写入完成
+     *
+     * @param messageId              消息标识，消息重复投递时保持不变
+     * @param trainCacheChangeKeyMap 列车 ID 与该列车余票缓存 Key、座位类型变更数量
+     * @param eventCount             变更对应的座位记录数量
+     */
+    public void submitAndWait(String messageId, Map<String, Map<String, Map<Integer, Integer>>> trainCacheChangeKeyMap, int eventCount) {
+        CompletableFuture<Void> future;
+        lock.lock();
+        try {
+            if (!running) {
+                throw new ServiceException("列车余票缓存更新组件已关闭");
+            }
+            Batch batch = currentBatch;
+            boolean firstEvent = batch.eventCount == 0;
+            trainCacheChangeKeyMap.forEach((trainId, cacheChangeKeyMap) -> batch.entries.add(
+                    new ApplyEntry(String.format(TRAIN_STATION_REMAINING_TICKET_BINLOG_APPLIED, trainId, messageId), cacheChangeKeyMap)
+            ));
+            batch.add(eventCount);
+            if (firstEvent || batch.eventCount >= maxEvents) {
+                batchCondition.signal();
+            }
+            future = batch.future;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            future.get(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // 批次稍后写入成功时，消息重新投递会被应用标记跳过
+            throw new ServiceException("列车余票缓存批量更新超时");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ServiceException("列车余票缓存批量更新失败");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("列车余票缓存批量更新被中断");
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            applyScript = StreamUtils.copyToByteArray(new ClassPathResource(LUA_TRAIN_STATION_REMAINING_TICKET_BINLOG_APPLY_PATH).getInputStream());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        flushThread = new Thread(this::runFlushLoop, "ticket-availability-cache-update-batcher");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            batchCondition.signal();
+        } finally {
+            lock.unlock();
+        }
+        flushThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void runFlushLoop() {
+        while (true) {
+            Batch batch;
+            lock.lock();
+            try {
+                while (running && currentBatch.eventCount == 0) {
+                    batchCondition.awaitUninterruptibly();
+                }
+                if (!running && currentBatch.eventCount == 0) {
+                    return;
+                }
+                // 从批次第一条变更开始计时，达到最大等待时间或最大变更数量后写入
+                long deadline = currentBatch.firstEventNanos + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                long remaining;
+                while (running && currentBatch.eventCount < maxEvents && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        batchCondition.awaitNanos(remaining);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                batch = currentBatch;
+                currentBatch = new Batch();
+            } finally {
+                lock.unlock();
+            }
+            flush(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        try {
+            StringRedisTemplate instance = (StringRedisTemplate) distributedCache.getInstance();
+            // 使用 EVAL 而非 EVALSHA，脚本未缓存时管道内不会因 NOSCRIPT 整批失败
+            instance.executePipelined((RedisCallback<Object>) connection -> {
+                for (ApplyEntry each : batch.entries) {
+                    byte[][] keysAndArgs = buildKeysAndArgs(each);
+                    connection.scriptingCommands().eval(applyScript, ReturnType.INTEGER, each.cacheChangeKeyMap.size() + 1, keysAndArgs);
+                }
+                return null;
+            });
+            batch.future.complete(null);
+        } catch (Throwable ex) {
+            log.error("列车余票缓存批量更新失败，变更数量：{}", batch.eventCount, ex);
+            batch.future.completeExceptionally(ex);
+        }
+    }
+
+    private byte[][] buildKeysAndArgs(ApplyEntry entry) {
+        List<byte[]> keys = new ArrayList<>(entry.cacheChangeKeyMap.size() + 1);
+        List<byte[]> args = new ArrayList<>();
+        keys.add((cacheRedisPrefix + entry.appliedKey).getBytes(StandardCharsets.UTF_8));
+        args.add(String.valueOf(appliedTtlSeconds).getBytes(StandardCharsets.UTF_8));
+        entry.cacheChangeKeyMap.forEach((cacheKey, cacheVal) -> {
+            keys.add((cacheRedisPrefix + cacheKey).getBytes(StandardCharsets.UTF_8));
+            args.add(String.valueOf(cacheVal.size()).getBytes(StandardCharsets.UTF_8));
+            cacheVal.forEach((seatType, num) -> {
+                args.add(String.valueOf(seatType).getBytes(StandardCharsets.UTF_8));
+                args.add(String.valueOf(num).getBytes(StandardCharsets.UTF_8));
+            });
+        });
+        keys.addAll(args);
+        return keys.toArray(new byte[0][]);
+    }
+
+    private record ApplyEntry(String appliedKey, Map<String, Map<Integer, Integer>> cacheChangeKeyMap) {
+    }
+
+    private static final class Batch {
+
+        private final List<ApplyEntry> entries = new ArrayList<>();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int eventCount;
+        private long firstEventNanos;
+
+        private void add(int count) {
+            if (eventCount == 0) {
+                firstEventNanos = System.nanoTime();
+            }
+            eventCount += count;
+        }
+    }
+}
@@ -7,9 +7,7 @@ import lombok.RequiredArgsConstructor;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.CanalExecuteStrategyMarkEnum;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
 import org.opengoofy.index12306.biz.ticketservice.mq.event.CanalBinlogEvent;
-import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.designpattern.strategy.AbstractExecuteStrategy;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -22,12 +20,13 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
 
 /**
  * 列车余票缓存更新组件
+ * 单条消息内的余票变更先合并，再交给 {@link TicketAvailabilityCacheUpdateBatcher} 与其它消息的变更合并后批量写入
  */
 @Component
 @RequiredArgsConstructor
 public class TicketAvailabilityCacheUpdateHandler implements AbstractExecuteStrategy<CanalBinlogEvent, Void> {
 
-    private final DistributedCache distributedCache;
+    private final TicketAvailabilityCacheUpdateBatcher ticketAvailabilityCacheUpdateBatcher;
 
     @Override
     public void execute(CanalBinlogEvent message) {
@@ -46,25 +45,22 @@ public class TicketAvailabilityCacheUpdateHandler implements AbstractExecuteStra
         if (CollUtil.isEmpty(messageDataList) || CollUtil.isEmpty(actualOldDataList)) {
             return;
         }
-        Map<String, Map<Integer, Integer>> cacheChangeKeyMap = new HashMap<>();
+        // 列车 ID -> 余票缓存 Key -> 座位类型变更数量，每趟列车的变更在批处理组件中由一次 Lua 调用原子应用
+        Map<String, Map<String, Map<Integer, Integer>>> trainCacheChangeKeyMap = new HashMap<>();
         for (int i = 0; i < messageDataList.size(); i++) {
             Map<String, Object> each = messageDataList.get(i);
             Map<String, Object> actualOldData = actualOldDataList.get(i);
             String seatStatus = actualOldData.get("seat_status").toString();
             int increment = Objects.equals(seatStatus, "0") ? -1 : 1;
             String trainId = each.get("train_id").toString();
-            String hashCacheKey = TRAIN_STATION_REMAINING_TICKET + trainId + "_" + each.get("start_station") + "_" + each.get("end_station");
-            Map<Integer, Integer> seatTypeMap = cacheChangeKeyMap.get(hashCacheKey);
-            if (CollUtil.isEmpty(seatTypeMap)) {
-                seatTypeMap = new HashMap<>();
-            }
+            String hashCacheKey = String.format(TRAIN_STATION_REMAINING_TICKET, trainId, each.get("start_station"), each.get("end_station"));
             Integer seatType = Integer.parseInt(each.get("seat_type").toString());
-            Integer num = seatTypeMap.get(seatType);
-            seatTypeMap.put(seatType, num == null ? increment : num + increment);
-            cacheChangeKeyMap.put(hashCacheKey, seatTypeMap);
+            trainCacheChangeKeyMap.computeIfAbsent(trainId, key -> new HashMap<>())
+                    .computeIfAbsent(hashCacheKey, key -> new HashMap<>())
+                    .merge(seatType, increment, Integer::sum);
         }
-        StringRedisTemplate instance = (StringRedisTemplate) distributedCache.getInstance();
-        cacheChangeKeyMap.forEach((cacheKey, cacheVal) -> cacheVal.forEach((seatType, num) -> instance.opsForHash().increment(cacheKey, String.valueOf(seatType), num)));
+        // 等待所在批次写入完成后再确认消息，避免实例宕机丢失余票变更；消息标识与幂等组件保持一致，重复投递时保持不变
+        ticketAvailabilityCacheUpdateBatcher.submitAndWait(message.getId() + "_" + message.hashCode(), trainCacheChangeKeyMap, messageDataList.size());
     }
 
     @Override
@@ -42,9 +42,16 @@ public final class RedisKeyConstant {
     public static final String REGION_STATION = "index12306-ticket-service:region-station:";
 
     /**
-     * 站点余票查询，Key Prefix + 列车ID_起始站点_终点
+     * 站点余票查询，Key Prefix + {列车ID}_起始站点_终点
+     * 列车 ID 作为 Hash Tag，同一列车全部区段的余票 Key 位于同一 Redis Cluster 槽位，可在一次 Lua 调用中原子变更
      */
-    public static final String TRAIN_STATION_REMAINING_TICKET = "index12306-ticket-service:train_station_remaining_ticket:";
+    public static final String TRAIN_STATION_REMAINING_TICKET = "index12306-ticket-service:train_station_remaining_ticket:{%s}_%s_%s";
+
+    /**
+     * 站点余票 Binlog 消息应用标记，Key Prefix + {列车ID}_消息标识
+     * 与站点余票 Key 使用相同的 Hash Tag，防止消息重复投递时余票变更被重复累加
+     */
+    public static final String TRAIN_STATION_REMAINING_TICKET_BINLOG_APPLIED = "index12306-ticket-service:train_station_remaining_ticket_binlog_applied:{%s}_%s";
 
     /**
      * 列车车厢查询，Key Prefix + 列车ID
@@ -125,4 +132,24 @@ public final class RedisKeyConstant {
      * 令牌获取失败分布式锁 Key
      */
     public static final String LOCK_TOKEN_BUCKET_ISNULL = "index12306-ticket-service:lock:token-bucket-isnull:%s";
+
+    /**
+     * 排队购票结果，Key Prefix + 用户名_排队凭证
+     */
+    public static final String TICKET_PURCHASE_QUEUE_RESULT = "index12306-ticket-service:ticket_purchase_queue_result:%s_%s";
+
+    /**
+     * 用户排队购票中标记，Key Prefix + 用户名_列车ID_出发站_到达站
+     */
+    public static final String TICKET_PURCHASE_QUEUE_USER = "index12306-ticket-service:ticket_purchase_queue_user:%s_%s_%s_%s";
+
+    /**
+     * 缓存预热已完成批次检查点，Key Prefix + 任务名称_日期
+     */
+    public static final String CACHE_WARM_UP_CHECKPOINT = "index12306-ticket-service:cache_warm_up_checkpoint:%s_%s";
+
+    /**
+     * 缓存预热任务分布式锁 Key
+     */
+    public static final String LOCK_CACHE_WARM_UP = "index12306-ticket-service:lock:cache_warm_up:%s_%s";
 }
@@ -0,0 +1,34 @@
+package org.opengoofy.index12306.biz.ticketservice.common.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 排队购票状态枚举
+ */
+@RequiredArgsConstructor
+public enum PurchaseTicketQueueStatusEnum {
+
+    /**
+     * 排队中
+     */
+    WAITING(0),
+
+    /**
+     * 购票处理中
+     */
+    PROCESSING(1),
+
+    /**
+     * 购票成功
+     */
+    SUCCESS(2),
+
+    /**
+     * 购票失败
+     */
+    FAILED(3);
+
+    @Getter
+    private final Integer code;
+}
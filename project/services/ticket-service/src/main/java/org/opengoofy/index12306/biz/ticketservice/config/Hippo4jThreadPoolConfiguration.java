@@ -38,4 +38,23 @@ public class Hippo4jThreadPoolConfiguration {
                 .dynamicPool()
                 .build();
     }
+
+    /**
+     * 排队购票线程池，有界队列满时拒绝新的排队请求
+     */
+    @Bean
+    @DynamicThreadPool
+    public ThreadPoolExecutor purchaseTicketsQueueThreadPoolExecutor() {
+        String threadPoolId = "purchase-tickets-queue-thread-pool-executor";
+        return ThreadPoolBuilder.builder()
+                .threadPoolId(threadPoolId)
+                .threadFactory(threadPoolId)
+                .workQueue(BlockingQueueTypeEnum.LINKED_BLOCKING_QUEUE, 4096)
+                .corePoolSize(16)
+                .maximumPoolSize(16)
+                .keepAliveTime(60, TimeUnit.SECONDS)
+                .rejected(new ThreadPoolExecutor.AbortPolicy())
+                .dynamicPool()
+                .build();
+    }
 }
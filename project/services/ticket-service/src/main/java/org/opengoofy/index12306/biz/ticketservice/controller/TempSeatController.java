@@ -1,7 +1,6 @@
 
 package org.opengoofy.index12306.biz.ticketservice.controller;
 
-import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import lombok.RequiredArgsConstructor;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
@@ -48,8 +47,7 @@ public class TempSeatController {
         List<TrainStationRelationDO> trainStationRelationDOList = trainStationRelationMapper.selectList(Wrappers.lambdaQuery(TrainStationRelationDO.class)
                 .eq(TrainStationRelationDO::getTrainId, trainId));
         for (TrainStationRelationDO each : trainStationRelationDOList) {
-            String keySuffix = StrUtil.join("_", each.getTrainId(), each.getDeparture(), each.getArrival());
-            stringRedisTemplate.delete(TRAIN_STATION_REMAINING_TICKET + keySuffix);
+            stringRedisTemplate.delete(String.format(TRAIN_STATION_REMAINING_TICKET, each.getTrainId(), each.getDeparture(), each.getArrival()));
         }
         stringRedisTemplate.delete(TICKET_AVAILABILITY_TOKEN_BUCKET + trainId);
         return Results.success();
@@ -4,6 +4,8 @@ package org.opengoofy.index12306.biz.ticketservice.dao.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Param;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteSeatTypeCountDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatTypeCountDTO;
 
 import java.util.List;
@@ -22,4 +24,25 @@ public interface SeatMapper extends BaseMapper<SeatDO> {
      * 获取列车 startStation 到 endStation 区间可用座位数量
      */
     List<SeatTypeCountDTO> listSeatTypeCount(@Param("trainId") Long trainId, @Param("startStation") String startStation, @Param("endStation") String endStation, @Param("seatTypes") List<Integer> seatTypes);
+
+    /**
+     * 按照出发站、到达站以及座位类型聚合列车全部区间可用座位数量
+     */
+    List<RouteSeatTypeCountDTO> listRouteSeatTypeCount(@Param("trainId") Long trainId, @Param("seatTypes") List<Integer> seatTypes);
+
+    /**
+     * 获取列车相邻站点区段座位状态
+     */
+    List<SeatDO> listSeatSegmentStatus(@Param("trainId") Long trainId, @Param("segments") List<RouteDTO> segments);
+
+    /**
+     * 批量变更列车座位在指定区段的状态，expectedSeatStatus 不为空时仅变更处于该状态的记录
+     *
+     * @return 受影响行数
+     */
+    int updateSeatStatus(@Param("trainId") Long trainId,
+                         @Param("seats") List<SeatDO> seats,
+                         @Param("routes") List<RouteDTO> routes,
+                         @Param("seatStatus") Integer seatStatus,
+                         @Param("expectedSeatStatus") Integer expectedSeatStatus);
 }
@@ -2,24 +2,27 @@
 package org.opengoofy.index12306.biz.ticketservice.dto.domain;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * 站点路线实体
+ * 字段不可变，列车站点路线索引缓存的路线对象可在请求间直接共享
  */
-@Data
-@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
 @AllArgsConstructor
 public class RouteDTO {
 
     /**
      * 出发站点
      */
-    private String startStation;
+    private final String startStation;
 
     /**
      * 目的站点
      */
-    private String endStation;
+    private final String endStation;
 }
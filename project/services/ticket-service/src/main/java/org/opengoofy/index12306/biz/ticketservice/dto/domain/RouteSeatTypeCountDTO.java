@@ -0,0 +1,34 @@
+package org.opengoofy.index12306.biz.ticketservice.dto.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 站点区间座位类型和座位数量实体
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteSeatTypeCountDTO {
+
+    /**
+     * 出发站点
+     */
+    private String startStation;
+
+    /**
+     * 到达站点
+     */
+    private String endStation;
+
+    /**
+     * 座位类型
+     */
+    private Integer seatType;
+
+    /**
+     * 座位类型 - 对应数量
+     */
+    private Integer seatCount;
+}
@@ -0,0 +1,36 @@
+package org.opengoofy.index12306.biz.ticketservice.dto.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 排队购票返回参数
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TicketPurchaseQueueRespDTO {
+
+    /**
+     * 排队凭证
+     */
+    private String queueTicket;
+
+    /**
+     * 排队状态 0：排队中 1：处理中 2：购票成功 3：购票失败
+     */
+    private Integer status;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 购票结果，购票成功时返回
+     */
+    private TicketPurchaseRespDTO purchaseResult;
+}
@@ -4,18 +4,22 @@ package org.opengoofy.index12306.biz.ticketservice.job;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.xxl.job.core.context.XxlJobHelper;
 import com.xxl.job.core.handler.IJobHandler;
 import com.xxl.job.core.handler.annotation.XxlJob;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.RegionDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationRelationDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.RegionMapper;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationRelationMapper;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.common.toolkit.EnvironmentUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,8 +27,11 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -34,8 +41,9 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
 
 /**
  * 地区站点查询定时任务
+ * 按照主键分批顺序扫描一次列车站点关系表，在内存中按照出发地区、到达地区分组后通过管道批量重建地区站点有序集合
  */
-@Deprecated
+@Slf4j
 @RestController
 @RequiredArgsConstructor
 public class RegionTrainStationJobHandler extends IJobHandler {
@@ -44,41 +52,72 @@ public class RegionTrainStationJobHandler extends IJobHandler {
     private final TrainStationRelationMapper trainStationRelationMapper;
     private final DistributedCache distributedCache;
 
+    @Value("${ticket.warm-up.region-train-station.scan-batch-size:5000}")
+    private int scanBatchSize;
+
+    @Value("${ticket.warm-up.region-train-station.pipeline-batch-size:500}")
+    private int pipelineBatchSize;
+
     @XxlJob(value = "regionTrainStationJobHandler")
     @GetMapping("/api/ticket-service/region-train-station/job/cache-init/execute")
     @Override
     public void execute() {
-        List<String> regionList = regionMapper.selectList(Wrappers.emptyWrapper())
+        long startTime = System.currentTimeMillis();
+        Set<String> regionSet = regionMapper.selectList(Wrappers.emptyWrapper())
                 .stream()
                 .map(RegionDO::getName)
-                .collect(Collectors.toList());
+                .collect(Collectors.toSet());
         String requestParam = getJobRequestParam();
         var dateTime = StrUtil.isNotBlank(requestParam) ? requestParam : DateUtil.tomorrow().toDateStr();
-        for (int i = 0; i < regionList.size(); i++) {
-            for (int j = 0; j < regionList.size(); j++) {
-                if (i != j) {
-                    String startRegion = regionList.get(i);
-                    String endRegion = regionList.get(j);
-                    LambdaQueryWrapper<TrainStationRelationDO> relationQueryWrapper = Wrappers.lambdaQuery(TrainStationRelationDO.class)
-                            .eq(TrainStationRelationDO::getStartRegion, startRegion)
-                            .eq(TrainStationRelationDO::getEndRegion, endRegion);
-                    List<TrainStationRelationDO> trainStationRelationDOList = trainStationRelationMapper.selectList(relationQueryWrapper);
-                    if (CollUtil.isEmpty(trainStationRelationDOList)) {
-                        continue;
-                    }
-                    Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
-                    for (TrainStationRelationDO item : trainStationRelationDOList) {
-                        String zSetKey = StrUtil.join("_", item.getTrainId(), item.getDeparture(), item.getArrival());
-                        ZSetOperations.TypedTuple<String> tuple = ZSetOperations.TypedTuple.of(zSetKey, Double.valueOf(item.getDepartureTime().getTime()));
-                        tuples.add(tuple);
-                    }
-                    StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-                    String buildCacheKey = REGION_TRAIN_STATION + StrUtil.join("_", startRegion, endRegion, dateTime);
-                    stringRedisTemplate.opsForZSet().add(buildCacheKey, tuples);
-                    stringRedisTemplate.expire(buildCacheKey, ADVANCE_TICKET_DAY, TimeUnit.DAYS);
+        Map<String, Set<ZSetOperations.TypedTuple<String>>> regionPairTuplesMap = new HashMap<>();
+        long scannedRows = 0L;
+        long lastId = 0L;
+        for (; ; ) {
+            List<TrainStationRelationDO> relationList = trainStationRelationMapper.selectList(Wrappers.lambdaQuery(TrainStationRelationDO.class)
+                    .select(TrainStationRelationDO::getId, TrainStationRelationDO::getTrainId, TrainStationRelationDO::getDeparture, TrainStationRelationDO::getArrival,
+                            TrainStationRelationDO::getStartRegion, TrainStationRelationDO::getEndRegion, TrainStationRelationDO::getDepartureTime)
+                    .gt(TrainStationRelationDO::getId, lastId)
+                    .orderByAsc(TrainStationRelationDO::getId)
+                    .last("limit " + scanBatchSize));
+            if (CollUtil.isEmpty(relationList)) {
+                break;
+            }
+            scannedRows += relationList.size();
+            lastId = relationList.get(relationList.size() - 1).getId();
+            for (TrainStationRelationDO item : relationList) {
+                String startRegion = item.getStartRegion();
+                String endRegion = item.getEndRegion();
+                if (StrUtil.equals(startRegion, endRegion) || !regionSet.contains(startRegion) || !regionSet.contains(endRegion)) {
+                    continue;
                 }
+                String buildCacheKey = String.format(REGION_TRAIN_STATION, startRegion, endRegion) + "_" + dateTime;
+                String zSetKey = StrUtil.join("_", item.getTrainId(), item.getDeparture(), item.getArrival());
+                regionPairTuplesMap.computeIfAbsent(buildCacheKey, each -> new HashSet<>())
+                        .add(ZSetOperations.TypedTuple.of(zSetKey, (double) item.getDepartureTime().getTime()));
             }
+            if (relationList.size() < scanBatchSize) {
+                break;
+            }
+        }
+        List<String> cacheKeys = new ArrayList<>(regionPairTuplesMap.keySet());
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        for (List<String> batchCacheKeys : CollUtil.split(cacheKeys, pipelineBatchSize)) {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    for (String each : batchCacheKeys) {
+                        // 先删除再写入，重建后不再保留已下线的列车
+                        operations.delete(each);
+                        operations.opsForZSet().add(each, regionPairTuplesMap.get(each));
+                        operations.expire(each, ADVANCE_TICKET_DAY, TimeUnit.DAYS);
+                    }
+                    return null;
+                }
+            });
         }
+        log.info("地区站点缓存重建完成，日期：{}，扫描关系记录：{}，地区组合：{}，耗时：{} ms",
+                dateTime, scannedRows, cacheKeys.size(), System.currentTimeMillis() - startTime);
     }
 
     private String getJobRequestParam() {
@@ -6,7 +6,6 @@ import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.StrUtil;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.xxl.job.core.handler.annotation.XxlJob;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +14,9 @@ import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationRelatio
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationRelationMapper;
 import org.opengoofy.index12306.biz.ticketservice.job.base.AbstractTrainStationJobHandlerTemplate;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,6 +24,8 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static cn.hutool.core.date.DatePattern.NORM_DATETIME_MINUTE_FORMAT;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
@@ -31,7 +35,6 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
  * 站点详细信息定时任务
  * 已通过运行时判断缓存不存在实时读取数据库获取完成，该定时任务不在主流程中
  */
-@Deprecated
 @RestController
 @RequiredArgsConstructor
 public class TrainStationDetailJobHandler extends AbstractTrainStationJobHandlerTemplate {
@@ -48,27 +51,33 @@ public class TrainStationDetailJobHandler extends AbstractTrainStationJobHandler
 
     @Override
     protected void actualExecute(List<TrainDO> trainDOPageRecords) {
-        for (TrainDO each : trainDOPageRecords) {
-            LambdaQueryWrapper<TrainStationRelationDO> relationQueryWrapper = Wrappers.lambdaQuery(TrainStationRelationDO.class)
-                    .eq(TrainStationRelationDO::getTrainId, each.getId());
-            List<TrainStationRelationDO> trainStationRelationDOList = trainStationRelationMapper.selectList(relationQueryWrapper);
-            if (CollUtil.isEmpty(trainStationRelationDOList)) {
-                return;
-            }
-            for (TrainStationRelationDO item : trainStationRelationDOList) {
-                Map<String, String> actualCacheHashValue = MapUtil.builder("trainNumber", each.getTrainNumber())
-                        .put("departureFlag", BooleanUtil.toStringTrueFalse(item.getDepartureFlag()))
-                        .put("arrivalFlag", BooleanUtil.toStringTrueFalse(item.getArrivalFlag()))
-                        .put("departureTime", DateUtil.format(item.getDepartureTime(), "HH:mm"))
-                        .put("arrivalTime", DateUtil.format(item.getArrivalTime(), "HH:mm"))
-                        .put("saleTime", DateUtil.format(each.getSaleTime(), NORM_DATETIME_MINUTE_FORMAT))
-                        .put("trainTag", each.getTrainTag().toString())
-                        .build();
-                StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-                String buildCacheKey = TRAIN_STATION_DETAIL + StrUtil.join("_", each.getId(), item.getDeparture(), item.getArrival());
-                stringRedisTemplate.opsForHash().putAll(buildCacheKey, actualCacheHashValue);
-                stringRedisTemplate.expire(buildCacheKey, ADVANCE_TICKET_DAY, TimeUnit.DAYS);
-            }
+        Map<Long, TrainDO> trainMap = trainDOPageRecords.stream().collect(Collectors.toMap(TrainDO::getId, Function.identity()));
+        List<TrainStationRelationDO> trainStationRelationDOList = trainStationRelationMapper.selectList(Wrappers.lambdaQuery(TrainStationRelationDO.class)
+                .in(TrainStationRelationDO::getTrainId, trainMap.keySet()));
+        if (CollUtil.isEmpty(trainStationRelationDOList)) {
+            return;
         }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (TrainStationRelationDO item : trainStationRelationDOList) {
+                    TrainDO each = trainMap.get(item.getTrainId());
+                    Map<String, String> actualCacheHashValue = MapUtil.builder("trainNumber", each.getTrainNumber())
+                            .put("departureFlag", BooleanUtil.toStringTrueFalse(item.getDepartureFlag()))
+                            .put("arrivalFlag", BooleanUtil.toStringTrueFalse(item.getArrivalFlag()))
+                            .put("departureTime", DateUtil.format(item.getDepartureTime(), "HH:mm"))
+                            .put("arrivalTime", DateUtil.format(item.getArrivalTime(), "HH:mm"))
+                            .put("saleTime", DateUtil.format(each.getSaleTime(), NORM_DATETIME_MINUTE_FORMAT))
+                            .put("trainTag", each.getTrainTag().toString())
+                            .build();
+                    String buildCacheKey = TRAIN_STATION_DETAIL + StrUtil.join("_", each.getId(), item.getDeparture(), item.getArrival());
+                    operations.opsForHash().putAll(buildCacheKey, actualCacheHashValue);
+                    operations.expire(buildCacheKey, ADVANCE_TICKET_DAY, TimeUnit.DAYS);
+                }
+                return null;
+            }
+        });
     }
 }
@@ -2,7 +2,6 @@
 package org.opengoofy.index12306.biz.ticketservice.job;
 
 import com.alibaba.fastjson2.JSON;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.xxl.job.core.handler.annotation.XxlJob;
 import lombok.RequiredArgsConstructor;
@@ -15,8 +14,12 @@ import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_STOPOVER_DETAIL;
 
@@ -24,7 +27,6 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
  * 列车路线信息定时任务
  * 已通过运行时判断缓存不存在实时读取数据库获取完成，该定时任务不在主流程中
  */
-@Deprecated
 @RestController
 @RequiredArgsConstructor
 public class TrainStationJobHandler extends AbstractTrainStationJobHandlerTemplate {
@@ -41,16 +43,17 @@ public class TrainStationJobHandler extends AbstractTrainStationJobHandlerTempla
 
     @Override
     protected void actualExecute(List<TrainDO> trainDOPageRecords) {
+        List<Long> trainIds = trainDOPageRecords.stream().map(TrainDO::getId).toList();
+        Map<Long, List<TrainStationDO>> trainStationMap = trainStationMapper.selectList(Wrappers.lambdaQuery(TrainStationDO.class)
+                        .in(TrainStationDO::getTrainId, trainIds)
+                        .orderByAsc(TrainStationDO::getId))
+                .stream()
+                .collect(Collectors.groupingBy(TrainStationDO::getTrainId));
+        Map<String, String> cacheValues = new HashMap<>(trainDOPageRecords.size() * 2);
         for (TrainDO each : trainDOPageRecords) {
-            LambdaQueryWrapper<TrainStationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationDO.class)
-                    .eq(TrainStationDO::getTrainId, each.getId());
-            List<TrainStationDO> trainStationDOList = trainStationMapper.selectList(queryWrapper);
-            distributedCache.put(
-                    TRAIN_STATION_STOPOVER_DETAIL + each.getId(),
-                    JSON.toJSONString(trainStationDOList),
-                    Index12306Constant.ADVANCE_TICKET_DAY,
-                    TimeUnit.DAYS
-            );
+            List<TrainStationDO> trainStationDOList = trainStationMap.getOrDefault(each.getId(), Collections.emptyList());
+            cacheValues.put(TRAIN_STATION_STOPOVER_DETAIL + each.getId(), JSON.toJSONString(trainStationDOList));
         }
+        distributedCache.multiPut(cacheValues, Index12306Constant.ADVANCE_TICKET_DAY, TimeUnit.DAYS);
     }
 }
@@ -2,25 +2,30 @@
 package org.opengoofy.index12306.biz.ticketservice.job;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.StrUtil;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.xxl.job.core.handler.annotation.XxlJob;
 import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleTypeEnum;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationRelationDO;
-import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.SeatMapper;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationRelationMapper;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteSeatTypeCountDTO;
 import org.opengoofy.index12306.biz.ticketservice.job.base.AbstractTrainStationJobHandlerTemplate;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_REMAINING_TICKET;
@@ -28,15 +33,15 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
 /**
  * 列车站点余票定时任务
  * 已通过运行时判断缓存不存在实时读取数据库获取完成，该定时任务不在主流程中
+ * 余票数量来自座位库存，每趟列车一次聚合查询全部区间各座位类型可售座位数量，并通过一次管道写入全部区间余票
  */
-@Deprecated
 @RestController
 @RequiredArgsConstructor
 public class TrainStationRemainingTicketJobHandler extends AbstractTrainStationJobHandlerTemplate {
 
     private final TrainStationRelationMapper trainStationRelationMapper;
+    private final SeatMapper seatMapper;
     private final DistributedCache distributedCache;
-    private final TrainMapper trainMapper;
 
     /**
      * 为了方便大家使用项目启动时初始化缓存
@@ -51,41 +56,41 @@ public class TrainStationRemainingTicketJobHandler extends AbstractTrainStationJ
 
     @Override
     protected void actualExecute(List<TrainDO> trainDOPageRecords) {
+        Map<Long, List<TrainStationRelationDO>> trainStationRelationMap = trainStationRelationMapper.selectList(Wrappers.lambdaQuery(TrainStationRelationDO.class)
+                        .select(TrainStationRelationDO::getTrainId, TrainStationRelationDO::getDeparture, TrainStationRelationDO::getArrival)
+                        .in(TrainStationRelationDO::getTrainId, trainDOPageRecords.stream().map(TrainDO::getId).toList()))
+                .stream()
+                .collect(Collectors.groupingBy(TrainStationRelationDO::getTrainId));
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
         for (TrainDO each : trainDOPageRecords) {
-            LambdaQueryWrapper<TrainStationRelationDO> relationQueryWrapper = Wrappers.lambdaQuery(TrainStationRelationDO.class)
-                    .eq(TrainStationRelationDO::getTrainId, each.getId());
-            List<TrainStationRelationDO> trainStationRelationDOList = trainStationRelationMapper.selectList(relationQueryWrapper);
-            if (CollUtil.isEmpty(trainStationRelationDOList)) {
-                return;
+            List<TrainStationRelationDO> trainStationRelationDOList = trainStationRelationMap.get(each.getId());
+            List<Integer> seatTypes = VehicleTypeEnum.findSeatTypesByCode(each.getTrainType());
+            if (CollUtil.isEmpty(trainStationRelationDOList) || CollUtil.isEmpty(seatTypes)) {
+                continue;
             }
-            for (TrainStationRelationDO item : trainStationRelationDOList) {
-                Long trainId = item.getTrainId();
-                TrainDO trainDO = trainMapper.selectById(trainId);
-                Map<String, String> trainStationRemainingTicket = new HashMap<>();
-                switch (trainDO.getTrainType()) {
-                    case 0 -> {
-                        trainStationRemainingTicket.put("0", "10");
-                        trainStationRemainingTicket.put("1", "140");
-                        trainStationRemainingTicket.put("2", "810");
-                    }
-                    case 1 -> {
-                        trainStationRemainingTicket.put("3", "96");
-                        trainStationRemainingTicket.put("4", "192");
-                        trainStationRemainingTicket.put("5", "216");
-                        trainStationRemainingTicket.put("13", "216");
-                    }
-                    case 2 -> {
-                        trainStationRemainingTicket.put("6", "96");
-                        trainStationRemainingTicket.put("7", "192");
-                        trainStationRemainingTicket.put("8", "216");
-                        trainStationRemainingTicket.put("13", "216");
+            // 一次聚合查询列车全部区间各座位类型的可售座位数量
+            Map<String, Integer> routeSeatTypeCountMap = seatMapper.listRouteSeatTypeCount(each.getId(), seatTypes).stream()
+                    .collect(Collectors.toMap(
+                            item -> CacheUtil.buildKey(item.getStartStation(), item.getEndStation(), String.valueOf(item.getSeatType())),
+                            RouteSeatTypeCountDTO::getSeatCount
+                    ));
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    for (TrainStationRelationDO item : trainStationRelationDOList) {
+                        Map<String, String> trainStationRemainingTicket = new LinkedHashMap<>();
+                        seatTypes.forEach(seatType -> {
+                            String routeSeatTypeKey = CacheUtil.buildKey(item.getDeparture(), item.getArrival(), String.valueOf(seatType));
+                            trainStationRemainingTicket.put(String.valueOf(seatType), String.valueOf(routeSeatTypeCountMap.getOrDefault(routeSeatTypeKey, 0)));
+                        });
+                        String buildCacheKey = String.format(TRAIN_STATION_REMAINING_TICKET, each.getId(), item.getDeparture(), item.getArrival());
+                        operations.opsForHash().putAll(buildCacheKey, trainStationRemainingTicket);
+                        operations.expire(buildCacheKey, ADVANCE_TICKET_DAY, TimeUnit.DAYS);
                     }
+                    return null;
                 }
-                StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-                String buildCacheKey = TRAIN_STATION_REMAINING_TICKET + StrUtil.join("_", each.getId(), item.getDeparture(), item.getArrival());
-                stringRedisTemplate.opsForHash().putAll(buildCacheKey, trainStationRemainingTicket);
-                stringRedisTemplate.expire(buildCacheKey, ADVANCE_TICKET_DAY, TimeUnit.DAYS);
-            }
+            });
         }
     }
 }
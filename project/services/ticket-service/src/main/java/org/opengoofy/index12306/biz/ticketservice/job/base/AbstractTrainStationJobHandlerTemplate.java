@@ -1,15 +1,11 @@
 
 package org.opengoofy.index12306.biz.ticketservice.job.base;
 
-import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
-import com.baomidou.mybatisplus.core.toolkit.Wrappers;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xxl.job.core.context.XxlJobHelper;
 import com.xxl.job.core.handler.IJobHandler;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
-import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
 import org.opengoofy.index12306.framework.starter.bases.ApplicationContextHolder;
 import org.opengoofy.index12306.framework.starter.common.toolkit.EnvironmentUtil;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -20,13 +16,13 @@ import java.util.Optional;
 
 /**
  * 抽象列车&车票相关定时任务
- * 已通过运行时判断缓存不存在实时读取数据库获取完成，该定时任务不在主流程中
+ * 已通过运行时判断缓存不存在实时读取数据库获取完成，该定时任务不在主流程中，用于提前预热下一个售票日的缓存
+ * 列车分批以及并行执行、断点续跑由 {@link CacheWarmUpExecutor} 完成，子类只需批量处理一批列车
  */
-@Deprecated
 public abstract class AbstractTrainStationJobHandlerTemplate extends IJobHandler {
 
     /**
-     * 模板方法模式具体实现子类执行定时任务
+     * 模板方法模式具体实现子类执行定时任务，会被多个线程并发调用，重复执行结果需保持一致
      *
      * @param trainDOPageRecords 列车信息分页记录
      */
@@ -34,21 +30,10 @@ public abstract class AbstractTrainStationJobHandlerTemplate extends IJobHandler
 
     @Override
     public void execute() {
-        var currentPage = 1L;
-        var size = 1000L;
         var requestParam = getJobRequestParam();
         var dateTime = StrUtil.isNotBlank(requestParam) ? DateUtil.parse(requestParam, "yyyy-MM-dd") : DateUtil.tomorrow();
-        var trainMapper = ApplicationContextHolder.getBean(TrainMapper.class);
-        for (; ; currentPage++) {
-            var queryWrapper = Wrappers.lambdaQuery(TrainDO.class)
-                    .between(TrainDO::getDepartureTime, DateUtil.beginOfDay(dateTime), DateUtil.endOfDay(dateTime));
-            var trainDOPage = trainMapper.selectPage(new Page<>(currentPage, size), queryWrapper);
-            if (trainDOPage == null || CollUtil.isEmpty(trainDOPage.getRecords())) {
-                break;
-            }
-            var trainDOPageRecords = trainDOPage.getRecords();
-            actualExecute(trainDOPageRecords);
-        }
+        var cacheWarmUpExecutor = ApplicationContextHolder.getBean(CacheWarmUpExecutor.class);
+        cacheWarmUpExecutor.execute(getClass().getSimpleName(), dateTime, this::actualExecute);
     }
 
     private String getJobRequestParam() {
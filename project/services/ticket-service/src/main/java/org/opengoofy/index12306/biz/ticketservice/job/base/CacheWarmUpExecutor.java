@@ -0,0 +1,199 @@
+package org.opengoofy.index12306.biz.ticketservice.job.base;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.DateUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.CACHE_WARM_UP_CHECKPOINT;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_CACHE_WARM_UP;
+
+/**
+ * 缓存预热执行器
+ * 按照列车 ID 键集分页将指定日期的列车划分为固定大小的批次，由多个工作线程并行处理，批次内由预热任务批量查询并通过管道写入缓存
+ * 已完成的批次记录在 Redis 检查点集合中，任务中断或部分批次失败后重新执行会跳过已完成的批次，全部批次成功后删除检查点
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheWarmUpExecutor {
+
+    private final TrainMapper trainMapper;
+    private final DistributedCache distributedCache;
+    private final RedissonClient redissonClient;
+
+    @Value("${ticket.warm-up.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ticket.warm-up.parallelism:4}")
+    private int parallelism;
+
+    @Value("${ticket.warm-up.checkpoint-ttl-hours:48}")
+    private long checkpointTtlHours;
+
+    /**
+     * 执行缓存预热
+     *
+     * @param taskName     预热任务名称
+     * @param dateTime     列车出发日期
+     * @param batchHandler 批次处理逻辑，需保证重复执行结果一致
+     */
+    public void execute(String taskName, Date dateTime, Consumer<List<TrainDO>> batchHandler) {
+        String date = DateUtil.formatDate(dateTime);
+        RLock lock = redissonClient.getLock(String.format(LOCK_CACHE_WARM_UP, taskName, date));
+        if (!lock.tryLock()) {
+            log.warn("缓存预热任务 [{}] 日期 {} 正在执行，跳过本次执行", taskName, date);
+            return;
+        }
+        try {
+            doExecute(taskName, date, dateTime, batchHandler);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doExecute(String taskName, String date, Date dateTime, Consumer<List<TrainDO>> batchHandler) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        String checkpointKey = String.format(CACHE_WARM_UP_CHECKPOINT, taskName, date);
+        Set<String> completedBatches = Optional.ofNullable(stringRedisTemplate.opsForSet().members(checkpointKey)).orElseGet(Set::of);
+        Date beginTime = DateUtil.beginOfDay(dateTime);
+        Date endTime = DateUtil.endOfDay(dateTime);
+        Long totalTrains = trainMapper.selectCount(Wrappers.lambdaQuery(TrainDO.class).between(TrainDO::getDepartureTime, beginTime, endTime));
+        WarmUpProgress progress = new WarmUpProgress(taskName, date, totalTrains);
+        log.info("缓存预热任务 [{}] 日期 {} 开始执行，列车数量：{}，已完成批次：{}", taskName, date, totalTrains, completedBatches.size());
+        ThreadPoolExecutor executor = buildExecutor(taskName);
+        // 限制已查询未处理的批次数量，避免列车数据全部堆积在内存中
+        Semaphore inflightBatches = new Semaphore(parallelism * 2);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try {
+            long lastId = 0L;
+            for (; ; ) {
+                List<TrainDO> batch = trainMapper.selectList(Wrappers.lambdaQuery(TrainDO.class)
+                        .between(TrainDO::getDepartureTime, beginTime, endTime)
+                        .gt(TrainDO::getId, lastId)
+                        .orderByAsc(TrainDO::getId)
+                        .last("limit " + batchSize));
+                if (CollUtil.isEmpty(batch)) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+                // 批次标识包含首尾列车 ID，列车数据变化导致批次划分不同时重新处理，批次处理本身是幂等的
+                String batchId = batch.get(0).getId() + "_" + lastId;
+                if (completedBatches.contains(batchId)) {
+                    progress.skip(batch.size());
+                } else {
+                    inflightBatches.acquireUninterruptibly();
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        batchHandler.accept(batch);
+                        stringRedisTemplate.opsForSet().add(checkpointKey, batchId);
+                        stringRedisTemplate.expire(checkpointKey, checkpointTtlHours, TimeUnit.HOURS);
+                    }, executor).whenComplete((unused, ex) -> {
+                        inflightBatches.release();
+                        if (ex != null) {
+                            progress.fail(batch.size());
+                            log.error("缓存预热任务 [{}] 日期 {} 批次 {} 执行失败", taskName, date, batchId, ex);
+                        } else {
+                            progress.complete(batch.size());
+                        }
+                    }));
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            // 查询列车异常时同样等待已提交批次执行完成，避免释放任务锁后重试与未完成批次并发写入检查点
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(ex -> null).join();
+            executor.shutdown();
+        }
+        if (progress.failedTrains.get() == 0) {
+            stringRedisTemplate.delete(checkpointKey);
+        }
+        progress.report(true);
+    }
+
+    private ThreadPoolExecutor buildExecutor(String taskName) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "cache-warm-up-" + taskName + "-" + threadIndex.incrementAndGet())
+        );
+    }
+
+    /**
+     * 缓存预热进度，每处理完一定比例的列车输出一次进度以及吞吐量
+     */
+    private static final class WarmUpProgress {
+
+        private static final int REPORT_PERCENT_STEP = 10;
+
+        private final String taskName;
+        private final String date;
+        private final long totalTrains;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong completedTrains = new AtomicLong();
+        private final AtomicLong skippedTrains = new AtomicLong();
+        private final AtomicLong failedTrains = new AtomicLong();
+        private final AtomicInteger reportedPercent = new AtomicInteger();
+
+        private WarmUpProgress(String taskName, String date, Long totalTrains) {
+            this.taskName = taskName;
+            this.date = date;
+            this.totalTrains = Optional.ofNullable(totalTrains).orElse(0L);
+        }
+
+        private void complete(int trains) {
+            completedTrains.addAndGet(trains);
+            report(false);
+        }
+
+        private void skip(int trains) {
+            skippedTrains.addAndGet(trains);
+        }
+
+        private void fail(int trains) {
+            failedTrains.addAndGet(trains);
+            report(false);
+        }
+
+        private void report(boolean finished) {
+            long handledTrains = completedTrains.get() + skippedTrains.get() + failedTrains.get();
+            int percent = totalTrains == 0 ? 100 : (int) Math.min(100, handledTrains * 100 / totalTrains);
+            int reported = reportedPercent.get();
+            if (!finished && (percent - reported < REPORT_PERCENT_STEP || !reportedPercent.compareAndSet(reported, percent))) {
+                return;
+            }
+            long elapsed = Math.max(1L, System.currentTimeMillis() - startTime);
+            log.info("缓存预热任务 [{}] 日期 {} {}：进度 {}%，完成 {}，跳过 {}，失败 {}，总数 {}，耗时 {} ms，吞吐量 {} 列/秒",
+                    taskName, date, finished ? "执行结束" : "执行中", percent, completedTrains.get(), skippedTrains.get(), failedTrains.get(),
+                    totalTrains, elapsed, completedTrains.get() * 1000 / elapsed);
+        }
+    }
+}
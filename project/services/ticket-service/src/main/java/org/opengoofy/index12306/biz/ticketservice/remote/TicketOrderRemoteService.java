@@ -30,6 +30,15 @@ public interface TicketOrderRemoteService {
     @GetMapping("/api/order-service/order/ticket/query")
     Result<TicketOrderDetailRespDTO> queryTicketOrderByOrderSn(@RequestParam(value = "orderSn") String orderSn);
 
+    /**
+     * 跟据订单号集合批量查询车票订单
+     *
+     * @param orderSns 列车订单号集合
+     * @return 列车订单记录集合
+     */
+    @PostMapping("/api/order-service/order/ticket/batch-query")
+    Result<List<TicketOrderDetailRespDTO>> queryTicketOrderByOrderSns(@RequestBody List<String> orderSns);
+
 
     /**
      * 跟据子订单记录id查询车票子订单详情
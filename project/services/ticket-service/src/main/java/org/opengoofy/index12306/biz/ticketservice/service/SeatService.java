@@ -65,8 +65,9 @@ public interface SeatService extends IService<SeatDO> {
      * @param departure                   出发站
      * @param arrival                     到达站
      * @param trainPurchaseTicketRespList 乘车人以及座位信息
+     * @return 锁定的座位记录数量
      */
-    void lockSeat(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketRespList);
+    int lockSeat(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketRespList);
 
     /**
      * 解锁选中以及沿途车票状态
@@ -75,6 +76,7 @@ public interface SeatService extends IService<SeatDO> {
      * @param departure                  出发站
      * @param arrival                    到达站
      * @param trainPurchaseTicketResults 乘车人以及座位信息
+     * @return 解锁的座位记录数量
      */
-    void unlock(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults);
+    int unlock(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults);
 }
@@ -9,6 +9,7 @@ import org.opengoofy.index12306.biz.ticketservice.dto.req.RefundTicketReqDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketPageQueryReqDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.RefundTicketRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPageQueryRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseQueueRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.PayInfoRespDTO;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -50,6 +51,23 @@ public interface TicketService extends IService<TicketDO> {
      */
     TicketPurchaseRespDTO purchaseTicketsV2(@RequestBody PurchaseTicketReqDTO requestParam);
 
+    /**
+     * 排队购买车票
+     * 立即返回排队凭证，购票流程在有界线程池中异步执行，通过 {@link TicketService#queryPurchaseTicketsQueue(String)} 查询购票结果
+     *
+     * @param requestParam 车票购买请求参数
+     * @return 排队凭证
+     */
+    TicketPurchaseQueueRespDTO purchaseTicketsQueue(PurchaseTicketReqDTO requestParam);
+
+    /**
+     * 查询排队购票结果
+     *
+     * @param queueTicket 排队凭证
+     * @return 排队购票结果
+     */
+    TicketPurchaseQueueRespDTO queryPurchaseTicketsQueue(String queueTicket);
+
     /**
      * 执行购买车票
      * 被对应购票版本号接口调用 {@link TicketService#purchaseTicketsV1(PurchaseTicketReqDTO)} and {@link TicketService#purchaseTicketsV2(PurchaseTicketReqDTO)}
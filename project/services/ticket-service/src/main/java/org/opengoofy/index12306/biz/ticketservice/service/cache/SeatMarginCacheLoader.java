@@ -2,21 +2,22 @@
 package org.opengoofy.index12306.biz.ticketservice.service.cache;
 
 import cn.hutool.core.collection.CollUtil;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import lombok.RequiredArgsConstructor;
-import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleTypeEnum;
-import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.SeatMapper;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteSeatTypeCountDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.cache.MultistageCache;
 import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
@@ -25,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.*;
@@ -39,6 +41,7 @@ public class SeatMarginCacheLoader {
     private final TrainMapper trainMapper;
     private final SeatMapper seatMapper;
     private final DistributedCache distributedCache;
+    private final MultistageCache multistageCache;
     private final RedissonClient redissonClient;
     private final TrainStationService trainStationService;
 
@@ -58,6 +61,7 @@ public class SeatMarginCacheLoader {
         Map<String, Map<String, String>> trainStationRemainingTicketMaps = new LinkedHashMap<>();
         // 根据列车ID、出发站和到达站生成缓存键的后缀
         String keySuffix = CacheUtil.buildKey(trainId, departure, arrival);
+        String trainStationRemainingTicketKey = String.format(TRAIN_STATION_REMAINING_TICKET, trainId, departure, arrival);
         // 根据缓存键的后缀获取分布式锁
         // 缓存带来的分布式互斥锁还有哪些优化项？详情查看：https://nageoffer.com/12306/question
         RLock lock = redissonClient.getLock(String.format(LOCK_SAFE_LOAD_SEAT_MARGIN_GET, keySuffix));
@@ -65,11 +69,11 @@ public class SeatMarginCacheLoader {
         try {
             // 尝试从缓存中获取指定座位类型的余票数量
             StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-            Object quantityObj = stringRedisTemplate.opsForHash().get(TRAIN_STATION_REMAINING_TICKET + keySuffix, seatType);
+            Object quantityObj = stringRedisTemplate.opsForHash().get(trainStationRemainingTicketKey, seatType);
             // 如果缓存中不存在余票信息，则通过以下方式获取
             if (CacheUtil.isNullOrBlank(quantityObj)) {
                 // 从缓存中安全获取列车信息，如果缓存中不存在，则从数据库中查询并放入缓存
-                TrainDO trainDO = distributedCache.safeGet(
+                TrainDO trainDO = multistageCache.safeGet(
                         TRAIN_INFO + trainId,
                         TrainDO.class,
                         () -> trainMapper.selectById(trainId),
@@ -79,71 +83,43 @@ public class SeatMarginCacheLoader {
                 // 根据列车ID和车站信息查询列车的行驶路线
                 List<RouteDTO> routeDTOList = trainStationService.listTrainStationRoute(trainId, trainDO.getStartStation(), trainDO.getEndStation());
                 // 根据列车类型和行驶路线来构建各个车站的余票信息
+                List<Integer> seatTypes = VehicleTypeEnum.findSeatTypesByCode(trainDO.getTrainType());
                 if (CollUtil.isNotEmpty(routeDTOList)) {
-                    switch (trainDO.getTrainType()) {
-                        // TODO 通过已有列车类型座位枚举重构
-                        case 0 -> {
-                            for (RouteDTO each : routeDTOList) {
-                                Map<String, String> trainStationRemainingTicket = new LinkedHashMap<>();
-                                // 根据座位类型查询并设置余票信息
-                                trainStationRemainingTicket.put("0", selectSeatMargin(trainId, 0, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("1", selectSeatMargin(trainId, 1, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("2", selectSeatMargin(trainId, 2, each.getStartStation(), each.getEndStation()));
-                                String actualKeySuffix = CacheUtil.buildKey(trainId, each.getStartStation(), each.getEndStation());
-                                trainStationRemainingTicketMaps.put(TRAIN_STATION_REMAINING_TICKET + actualKeySuffix, trainStationRemainingTicket);
-                            }
-                        }
-                        case 1 -> {
-                            for (RouteDTO each : routeDTOList) {
-                                Map<String, String> trainStationRemainingTicket = new LinkedHashMap<>();
-                                trainStationRemainingTicket.put("3", selectSeatMargin(trainId, 3, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("4", selectSeatMargin(trainId, 4, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("5", selectSeatMargin(trainId, 5, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("13", selectSeatMargin(trainId, 13, each.getStartStation(), each.getEndStation()));
-                                String actualKeySuffix = CacheUtil.buildKey(trainId, each.getStartStation(), each.getEndStation());
-                                trainStationRemainingTicketMaps.put(TRAIN_STATION_REMAINING_TICKET + actualKeySuffix, trainStationRemainingTicket);
-                            }
-                        }
-                        case 2 -> {
-                            for (RouteDTO each : routeDTOList) {
-                                Map<String, String> trainStationRemainingTicket = new LinkedHashMap<>();
-                                trainStationRemainingTicket.put("6", selectSeatMargin(trainId, 6, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("7", selectSeatMargin(trainId, 7, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("8", selectSeatMargin(trainId, 8, each.getStartStation(), each.getEndStation()));
-                                trainStationRemainingTicket.put("13", selectSeatMargin(trainId, 13, each.getStartStation(), each.getEndStation()));
-                                String actualKeySuffix = CacheUtil.buildKey(trainId, each.getStartStation(), each.getEndStation());
-                                trainStationRemainingTicketMaps.put(TRAIN_STATION_REMAINING_TICKET + actualKeySuffix, trainStationRemainingTicket);
-                            }
-                        }
+                    // 一次聚合查询列车全部区间各座位类型的余票数量，避免按区间、座位类型逐条 COUNT
+                    Map<String, Integer> routeSeatTypeCountMap = seatMapper.listRouteSeatTypeCount(Long.parseLong(trainId), seatTypes).stream()
+                            .collect(Collectors.toMap(
+                                    each -> CacheUtil.buildKey(each.getStartStation(), each.getEndStation(), String.valueOf(each.getSeatType())),
+                                    RouteSeatTypeCountDTO::getSeatCount
+                            ));
+                    for (RouteDTO each : routeDTOList) {
+                        Map<String, String> trainStationRemainingTicket = new LinkedHashMap<>();
+                        seatTypes.forEach(seatTypeCode -> {
+                            String routeSeatTypeKey = CacheUtil.buildKey(each.getStartStation(), each.getEndStation(), String.valueOf(seatTypeCode));
+                            trainStationRemainingTicket.put(String.valueOf(seatTypeCode), String.valueOf(routeSeatTypeCountMap.getOrDefault(routeSeatTypeKey, 0)));
+                        });
+                        trainStationRemainingTicketMaps.put(String.format(TRAIN_STATION_REMAINING_TICKET, trainId, each.getStartStation(), each.getEndStation()), trainStationRemainingTicket);
                     }
                 } else {
                     // 如果没有行驶路线，则认为该列车在所有车站都没有余票
                     Map<String, String> trainStationRemainingTicket = new LinkedHashMap<>();
-                    VehicleTypeEnum.findSeatTypesByCode(trainDO.getTrainType())
-                            .forEach(each -> trainStationRemainingTicket.put(String.valueOf(each), "0"));
-                    trainStationRemainingTicketMaps.put(TRAIN_STATION_REMAINING_TICKET + keySuffix, trainStationRemainingTicket);
+                    seatTypes.forEach(each -> trainStationRemainingTicket.put(String.valueOf(each), "0"));
+                    trainStationRemainingTicketMaps.put(trainStationRemainingTicketKey, trainStationRemainingTicket);
                 }
-                // 将构建好的余票信息存入缓存中
-                // TODO LUA 脚本执行
-                trainStationRemainingTicketMaps.forEach((cacheKey, cacheMap) -> stringRedisTemplate.opsForHash().putAll(cacheKey, cacheMap));
+                // 通过管道批量写入所有区间的余票信息
+                stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    public Object execute(RedisOperations operations) throws DataAccessException {
+                        trainStationRemainingTicketMaps.forEach((cacheKey, cacheMap) -> operations.opsForHash().putAll(cacheKey, cacheMap));
+                        return null;
+                    }
+                });
             }
         } finally {
             lock.unlock();
         }
         // 返回指定车站的余票信息，如果不存在则返回空映射
-        return Optional.ofNullable(trainStationRemainingTicketMaps.get(TRAIN_STATION_REMAINING_TICKET + keySuffix))
+        return Optional.ofNullable(trainStationRemainingTicketMaps.get(trainStationRemainingTicketKey))
                 .orElse(new LinkedHashMap<>());
     }
-
-    private String selectSeatMargin(String trainId, Integer type, String departure, String arrival) {
-        LambdaQueryWrapper<SeatDO> queryWrapper = Wrappers.lambdaQuery(SeatDO.class)
-                .eq(SeatDO::getTrainId, trainId)
-                .eq(SeatDO::getSeatType, type)
-                .eq(SeatDO::getSeatStatus, SeatStatusEnum.AVAILABLE.getCode())
-                .eq(SeatDO::getStartStation, departure)
-                .eq(SeatDO::getEndStation, arrival);
-        return Optional.ofNullable(seatMapper.selectCount(queryWrapper))
-                .map(String::valueOf)
-                .orElse("0");
-    }
 }
@@ -0,0 +1,86 @@
+package org.opengoofy.index12306.biz.ticketservice.service.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
+import org.opengoofy.index12306.framework.starter.bases.Singleton;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.common.toolkit.Assert;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_REMAINING_TICKET;
+
+/**
+ * 列车站点余票缓存更新
+ * 购票、取消订单以及延迟关闭订单时，出发站至到达站影响的所有区段余票通过一次 Lua 脚本调用完成变更
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TrainStationRemainingTicketCacheUpdater {
+
+    private final DistributedCache distributedCache;
+    private final TrainStationService trainStationService;
+    private final MeterRegistry meterRegistry;
+
+    private static final String LUA_TRAIN_STATION_REMAINING_TICKET_ADJUST_PATH = "lua/train_station_remaining_ticket_adjust.lua";
+    private static final String ADJUST_TIMER_NAME = "index12306.ticket.remaining-ticket.adjust";
+
+    /**
+     * 变更出发站至到达站影响的所有区段余票
+     *
+     * @param scene            调用场景，用于区分耗时统计
+     * @param trainId          列车 ID
+     * @param departure        出发站
+     * @param arrival          到达站
+     * @param seatTypeDeltaMap 座位类型与余票变更数量，扣减为负数
+     */
+    public void adjust(String scene, String trainId, String departure, String arrival, Map<Integer, Integer> seatTypeDeltaMap) {
+        if (CollUtil.isEmpty(seatTypeDeltaMap)) {
+            return;
+        }
+        List<RouteDTO> routeDTOList = trainStationService.listTakeoutTrainStationRoute(trainId, departure, arrival);
+        if (CollUtil.isEmpty(routeDTOList)) {
+            return;
+        }
+        List<String> keys = routeDTOList.stream()
+                .map(each -> String.format(TRAIN_STATION_REMAINING_TICKET, trainId, each.getStartStation(), each.getEndStation()))
+                .collect(Collectors.toList());
+        List<String> args = new ArrayList<>(seatTypeDeltaMap.size() * 2);
+        seatTypeDeltaMap.forEach((seatType, delta) -> {
+            args.add(String.valueOf(seatType));
+            args.add(String.valueOf(delta));
+        });
+        DefaultRedisScript<Long> actual = Singleton.get(LUA_TRAIN_STATION_REMAINING_TICKET_ADJUST_PATH, () -> {
+            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TRAIN_STATION_REMAINING_TICKET_ADJUST_PATH)));
+            redisScript.setResultType(Long.class);
+            return redisScript;
+        });
+        Assert.notNull(actual);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            stringRedisTemplate.execute(actual, keys, args.toArray());
+        } finally {
+            long elapsed = sample.stop(Timer.builder(ADJUST_TIMER_NAME)
+                    .description("列车站点余票缓存单次变更耗时")
+                    .tag("scene", scene)
+                    .register(meterRegistry));
+            log.debug("[站点余票变更] 场景：{}，列车：{}，区段数：{}，耗时：{}ns", scene, trainId, keys.size(), elapsed);
+        }
+    }
+}
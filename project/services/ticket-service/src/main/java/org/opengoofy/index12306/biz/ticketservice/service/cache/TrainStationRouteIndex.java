@@ -0,0 +1,130 @@
+package org.opengoofy.index12306.biz.ticketservice.service.cache;
+
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 列车站点路线索引
+ * 构建后不可变，持有站序下标以及全部站点区间对象，途经路线与扣减路线按出发站到达站下标计算一次后复用
+ * 返回的路线集合不可修改且 {@link RouteDTO} 字段不可变，调用方直接共享缓存对象，查询路线无需分配内存
+ */
+public final class TrainStationRouteIndex {
+
+    private final List<String> stations;
+
+    private final Map<String, Integer> stationIndexMap;
+
+    /**
+     * 站点区间对象，routes[i][j] 代表第 i 站至第 j 站
+     */
+    private final RouteDTO[][] routes;
+
+    private final Map<Integer, List<RouteDTO>> throughRouteMap = new ConcurrentHashMap<>();
+
+    private final Map<Integer, List<RouteDTO>> takeoutRouteMap = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String[]> takeoutTokenFieldPrefixMap = new ConcurrentHashMap<>();
+
+    public TrainStationRouteIndex(List<String> stations) {
+        this.stations = List.copyOf(stations);
+        int size = stations.size();
+        Map<String, Integer> stationIndexMap = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            stationIndexMap.putIfAbsent(stations.get(i), i);
+        }
+        this.stationIndexMap = Collections.unmodifiableMap(stationIndexMap);
+        this.routes = new RouteDTO[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                routes[i][j] = new RouteDTO(stations.get(i), stations.get(j));
+            }
+        }
+    }
+
+    /**
+     * 列车站点集合，按照站序排列
+     */
+    public List<String> getStations() {
+        return stations;
+    }
+
+    /**
+     * 获取站点下标，站点不存在返回 -1
+     */
+    public int indexOf(String station) {
+        return stationIndexMap.getOrDefault(station, -1);
+    }
+
+    /**
+     * 获取出发站至到达站之间的全部途经路线，与 StationCalculateUtil#throughStation 结果一致
+     */
+    public List<RouteDTO> listThroughRoute(String departure, String arrival) {
+        int startIndex = indexOf(departure);
+        int endIndex = indexOf(arrival);
+        if (startIndex < 0 || endIndex < 0 || startIndex >= endIndex) {
+            return Collections.emptyList();
+        }
+        return throughRouteMap.computeIfAbsent(startIndex * stations.size() + endIndex, key -> {
+            List<RouteDTO> result = new ArrayList<>();
+            for (int i = startIndex; i < endIndex; i++) {
+                for (int j = i + 1; j <= endIndex; j++) {
+                    result.add(routes[i][j]);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    /**
+     * 获取出发站至到达站需要扣减余票的全部路线，与 StationCalculateUtil#takeoutStation 结果一致
+     */
+    public List<RouteDTO> listTakeoutRoute(String departure, String arrival) {
+        int startIndex = indexOf(departure);
+        int endIndex = indexOf(arrival);
+        if (startIndex < 0 || endIndex < 0 || startIndex >= endIndex) {
+            return Collections.emptyList();
+        }
+        return takeoutRouteMap.computeIfAbsent(startIndex * stations.size() + endIndex, key -> {
+            List<RouteDTO> result = new ArrayList<>();
+            for (int i = 0; i < startIndex; i++) {
+                for (int j = startIndex + 1; j < stations.size(); j++) {
+                    result.add(routes[i][j]);
+                }
+            }
+            for (int i = startIndex; i < endIndex; i++) {
+                for (int j = i + 1; j < stations.size(); j++) {
+                    result.add(routes[i][j]);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    /**
+     * 获取出发站至到达站令牌桶 Hash 字段前缀，格式为 出发站_到达站_，拼接座位类型即为令牌字段
+     */
+    public static String getTokenFieldPrefix(String departure, String arrival) {
+        return departure + "_" + arrival + "_";
+    }
+
+    /**
+     * 获取出发站至到达站需要扣减余票的全部路线令牌桶 Hash 字段前缀
+     * 以出发站到达站下标组合为键缓存，令牌桶脚本直接拼接座位类型，无需在 Redis 中解析路线对象
+     */
+    public String[] listTakeoutTokenFieldPrefix(String departure, String arrival) {
+        int startIndex = indexOf(departure);
+        int endIndex = indexOf(arrival);
+        if (startIndex < 0 || endIndex < 0 || startIndex >= endIndex) {
+            return new String[0];
+        }
+        return takeoutTokenFieldPrefixMap.computeIfAbsent(startIndex * stations.size() + endIndex, key -> listTakeoutRoute(departure, arrival).stream()
+                .map(each -> getTokenFieldPrefix(each.getStartStation(), each.getEndStation()))
+                .toArray(String[]::new));
+    }
+}
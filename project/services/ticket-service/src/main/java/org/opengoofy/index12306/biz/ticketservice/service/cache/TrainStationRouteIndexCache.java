@@ -0,0 +1,68 @@
+package org.opengoofy.index12306.biz.ticketservice.service.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 列车站点路线索引本地缓存
+ * 列车站点数据基本不变，按列车缓存站点路线索引，避免购票、取消订单等链路重复查询 t_train_station
+ * 索引写入 1 天后过期重新加载，运维或数据修复直接修改 t_train_station 后可调用失效方法立即生效
+ */
+@Component
+@RequiredArgsConstructor
+public class TrainStationRouteIndexCache {
+
+    private final TrainStationMapper trainStationMapper;
+
+    private final Cache<String, TrainStationRouteIndex> trainStationRouteIndexCache = Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.DAYS)
+            .maximumSize(10000)
+            .build();
+
+    /**
+     * 获取列车站点路线索引，不存在时从数据库加载
+     *
+     * @param trainId 列车 ID
+     * @return 列车站点路线索引
+     */
+    public TrainStationRouteIndex get(String trainId) {
+        return trainStationRouteIndexCache.get(trainId, this::load);
+    }
+
+    /**
+     * 列车站点变更后失效对应列车的路线索引
+     *
+     * @param trainId 列车 ID
+     */
+    public void invalidate(String trainId) {
+        trainStationRouteIndexCache.invalidate(trainId);
+    }
+
+    /**
+     * 失效全部列车的路线索引
+     */
+    public void invalidateAll() {
+        trainStationRouteIndexCache.invalidateAll();
+    }
+
+    private TrainStationRouteIndex load(String trainId) {
+        LambdaQueryWrapper<TrainStationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationDO.class)
+                .eq(TrainStationDO::getTrainId, trainId)
+                .orderByAsc(TrainStationDO::getSequence)
+                .select(TrainStationDO::getDeparture);
+        List<String> stations = trainStationMapper.selectList(queryWrapper).stream()
+                .map(TrainStationDO::getDeparture)
+                .collect(Collectors.toList());
+        return new TrainStationRouteIndex(stations);
+    }
+}
@@ -22,6 +22,7 @@ import org.opengoofy.index12306.framework.starter.convention.exception.ServiceEx
 import org.opengoofy.index12306.framework.starter.convention.result.Result;
 import org.opengoofy.index12306.framework.starter.designpattern.strategy.AbstractStrategyChoose;
 import org.opengoofy.index12306.frameworks.starter.user.core.UserContext;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -45,6 +46,7 @@ public final class TrainSeatTypeSelector {
     private final UserRemoteService userRemoteService;
     private final TrainStationPriceMapper trainStationPriceMapper;
     private final AbstractStrategyChoose abstractStrategyChoose;
+    @Qualifier("selectSeatThreadPoolExecutor")
     private final ThreadPoolExecutor selectSeatThreadPoolExecutor;
 
     /**
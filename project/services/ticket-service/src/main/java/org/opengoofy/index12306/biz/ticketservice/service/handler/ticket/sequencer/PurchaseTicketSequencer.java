@@ -0,0 +1,213 @@
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.sequencer;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 购票定序器
+ * 每趟列车拥有独立的购票队列，同一列车的全部购票请求（包括多座位类型购票）串行执行，无需再获取本地锁以及分布式锁
+ * 队列并非无锁结构，入队与出队通过 ConcurrentHashMap#compute 持有列车所在桶的锁，临界区只包含队列操作，不包含购票逻辑
+ * 不同列车的队列互不影响，由共享的有界线程池并行排空；队列为空时不占用线程，也不存在空转轮询
+ * 入队时若队列没有正在执行的排空任务，则由入队线程向线程池提交排空任务，排空任务每次最多取出 batchSize 个请求连续执行，直至队列为空
+ * 批量取出只减少调度以及桶锁开销，每个请求仍独立执行完整的选座、锁座以及创建订单流程，不会合并多个请求的乘车人一次选座
+ * 排空任务只在线程池线程执行，线程池等待队列已满时直接拒绝该列车队列中的全部请求，请求线程不会代为执行其他用户的购票
+ * 定序器只保证单实例内的串行化，多实例部署时需要网关按照列车 ID 将购票请求路由至固定实例，详见 application.yaml 中 ticket.purchase 配置说明
+ */
+@Slf4j
+@Component
+public class PurchaseTicketSequencer implements InitializingBean, DisposableBean {
+
+    @Value("${ticket.purchase.mode:}")
+    private String purchaseMode;
+
+    @Value("${ticket.purchase.sequencer.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${ticket.purchase.sequencer.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${ticket.purchase.sequencer.batch-size:32}")
+    private int batchSize;
+
+    @Value("${ticket.purchase.sequencer.pending-train-capacity:1024}")
+    private int pendingTrainCapacity;
+
+    /**
+     * 列车 ID 与购票队列映射，队列排空后移除，队列状态只在映射的 compute 中修改
+     */
+    private final ConcurrentHashMap<String, TrainQueue> trainQueueMap = new ConcurrentHashMap<>();
+
+    private ExecutorService drainExecutor;
+    private volatile boolean running;
+
+    /**
+     * 是否开启定序器购票模式
+     */
+    public boolean isEnabled() {
+        return drainExecutor != null;
+    }
+
+    /**
+     * 提交购票任务至列车对应的购票队列
+     *
+     * @param trainId 列车 ID
+     * @param action  购票逻辑
+     * @return 购票结果，列车购票队列已满、排空线程池已满或定序器已关闭时返回 null
+     */
+    public <T> CompletableFuture<T> submit(String trainId, Supplier<T> action) {
+        if (!running) {
+            return null;
+        }
+        PurchaseTask<T> task = new PurchaseTask<>(action, new CompletableFuture<>());
+        boolean[] accepted = new boolean[1];
+        boolean[] startDrain = new boolean[1];
+        TrainQueue trainQueue = trainQueueMap.compute(trainId, (key, queue) -> {
+            if (queue == null) {
+                queue = new TrainQueue(key);
+            }
+            if (queue.tasks.size() < queueCapacity) {
+                queue.tasks.offer(task);
+                accepted[0] = true;
+                if (!queue.draining) {
+                    queue.draining = true;
+                    startDrain[0] = true;
+                }
+            }
+            return queue;
+        });
+        if (!accepted[0]) {
+            return null;
+        }
+        if (startDrain[0]) {
+            try {
+                drainExecutor.execute(() -> drain(trainQueue));
+            } catch (RejectedExecutionException ex) {
+                rejectAll(trainQueue);
+                return null;
+            }
+        }
+        return task.future;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!StrUtil.equals(purchaseMode, "sequencer")) {
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 每趟列车同时最多只有一个排空任务，等待队列容量即等待排空线程的列车数量，超出后拒绝而不是由请求线程执行
+        drainExecutor = new ThreadPoolExecutor(
+                maxConcurrency,
+                maxConcurrency,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(pendingTrainCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "purchase-ticket-sequencer-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        ((ThreadPoolExecutor) drainExecutor).allowCoreThreadTimeOut(true);
+        running = true;
+        log.warn("购票定序器已开启，同一列车购票仅在本实例内串行且不获取分布式锁，多实例部署时必须按照列车 ID 将购票请求路由至固定实例");
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (drainExecutor == null) {
+            return;
+        }
+        running = false;
+        drainExecutor.shutdown();
+        drainExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void drain(TrainQueue trainQueue) {
+        List<PurchaseTask<?>> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            trainQueueMap.compute(trainQueue.trainId, (key, queue) -> {
+                PurchaseTask<?> task;
+                while (batch.size() < batchSize && (task = trainQueue.tasks.poll()) != null) {
+                    batch.add(task);
+                }
+                if (batch.isEmpty()) {
+                    // 队列已排空，移除后新的购票请求会重新创建队列并提交排空任务
+                    trainQueue.draining = false;
+                    return null;
+                }
+                return queue;
+            });
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (PurchaseTask<?> each : batch) {
+                try {
+                    each.execute();
+                } catch (Throwable ex) {
+                    log.error("购票定序器执行任务失败，列车 ID：{}", trainQueue.trainId, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * 排空任务提交失败时，队列中的请求不会再被执行，移除队列并拒绝其中全部请求
+     */
+    private void rejectAll(TrainQueue trainQueue) {
+        List<PurchaseTask<?>> rejectedTasks = new ArrayList<>();
+        trainQueueMap.compute(trainQueue.trainId, (key, queue) -> {
+            rejectedTasks.addAll(trainQueue.tasks);
+            trainQueue.tasks.clear();
+            trainQueue.draining = false;
+            return null;
+        });
+        rejectedTasks.forEach(each -> each.future.completeExceptionally(new ServiceException("当前购票人数过多，请稍后再试")));
+    }
+
+    private record PurchaseTask<T>(Supplier<T> action, CompletableFuture<T> future) {
+
+        void execute() {
+            // 调用方已超时取消的任务不再执行
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(action.get());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static final class TrainQueue {
+
+        private final String trainId;
+        private final ArrayDeque<PurchaseTask<?>> tasks = new ArrayDeque<>();
+        private boolean draining;
+
+        private TrainQueue(String trainId) {
+            this.trainId = trainId;
+        }
+    }
+}
@@ -1,11 +1,8 @@
 
 package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket;
 
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONArray;
-import com.alibaba.fastjson2.JSONObject;
-import com.google.common.collect.Lists;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleTypeEnum;
@@ -19,13 +16,21 @@ import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRe
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassengerDetailRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainStationRouteIndex;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainStationRouteIndexCache;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TokenResultDTO;
 import org.opengoofy.index12306.framework.starter.bases.Singleton;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.cache.MultistageCache;
+import org.opengoofy.index12306.framework.starter.cache.hotkey.HotKeyDetector;
 import org.opengoofy.index12306.framework.starter.common.toolkit.Assert;
 import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
@@ -36,7 +41,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
@@ -46,20 +55,43 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
 
 /**
  * 列车车票余量令牌桶，应对海量并发场景下满足并行、限流以及防超卖等场景
+ * 开启令牌租约后，每个实例按照列车出发站、到达站以及座位类型整块租用令牌，租约内的购票请求只需扣减本地计数，租约过期或停机时归还未使用的令牌
+ * 令牌桶每次初始化都会生成新版本，租约归还令牌时需与租用时的版本一致，避免向重建后的令牌桶多还令牌
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public final class TicketAvailabilityTokenBucket {
+public final class TicketAvailabilityTokenBucket implements InitializingBean, DisposableBean {
 
     private final TrainStationService trainStationService;
     private final DistributedCache distributedCache;
+    private final MultistageCache multistageCache;
     private final RedissonClient redissonClient;
     private final SeatService seatService;
     private final TrainMapper trainMapper;
+    private final TrainStationRouteIndexCache trainStationRouteIndexCache;
+    private final ObjectProvider<HotKeyDetector> hotKeyDetectorProvider;
 
     private static final String LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH = "lua/ticket_availability_token_bucket.lua";
     private static final String LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH = "lua/ticket_availability_rollback_token_bucket.lua";
+    private static final String LUA_TICKET_AVAILABILITY_RETURN_TOKEN_LEASE_PATH = "lua/ticket_availability_return_token_lease.lua";
+    private static final String TOKEN_BUCKET_VERSION_FIELD = "version";
+    private static final long TOKEN_LEASE_CHECK_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * 单次租用令牌数量，小于等于 0 时不开启令牌租约
+     */
+    @Value("${ticket.availability.token-lease.size:0}")
+    private int tokenLeaseSize;
+
+    /**
+     * 令牌租约有效期
+     */
+    @Value("${ticket.availability.token-lease.ttl-millis:3000}")
+    private long tokenLeaseTtlMillis;
+
+    private final Map<String, TokenLease> tokenLeaseMap = new ConcurrentHashMap<>();
+    private ScheduledExecutorService tokenLeaseReturnExecutor;
 
     /**
      * 获取车站间令牌桶中的令牌访问
@@ -70,87 +102,85 @@ public final class TicketAvailabilityTokenBucket {
      * @return 是否获取列车车票余量令牌桶中的令牌返回结果
      */
     public TokenResultDTO takeTokenFromBucket(PurchaseTicketReqDTO requestParam) {
-        // 从分布式缓存中安全获取火车信息，如果缓存中不存在，则从数据库中查询并放入缓存
-        TrainDO trainDO = distributedCache.safeGet(
-                TRAIN_INFO + requestParam.getTrainId(),
-                TrainDO.class,
-                () -> trainMapper.selectById(requestParam.getTrainId()),
-                ADVANCE_TICKET_DAY,
-                TimeUnit.DAYS);
-        // 根据火车编号和起始、终点站获取火车路线信息
-        List<RouteDTO> routeDTOList = trainStationService
-                .listTrainStationRoute(requestParam.getTrainId(), trainDO.getStartStation(), trainDO.getEndStation());
-        // 获取Redis模板实例
-        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-        // 构建令牌桶缓存的键名
+        // 统计购票请求中各座位类型的数量
+        Map<Integer, Long> seatTypeCountMap = requestParam.getPassengers().stream()
+                .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType, Collectors.counting()));
+        // 单一座位类型的购票请求优先从本实例租用的令牌中扣减，租约命中时不访问 Redis 令牌桶
+        TokenLease lease = null;
+        int leaseTakeCount = 0;
+        if (tokenLeaseSize > 0 && seatTypeCountMap.size() == 1) {
+            Map.Entry<Integer, Long> seatTypeCount = seatTypeCountMap.entrySet().iterator().next();
+            leaseTakeCount = seatTypeCount.getValue().intValue();
+            lease = tokenLeaseMap.computeIfAbsent(
+                    StrUtil.join("_", requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival(), seatTypeCount.getKey()),
+                    key -> new TokenLease(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival(), seatTypeCount.getKey())
+            );
+            if (lease.tryAcquire(leaseTakeCount)) {
+                return TokenResultDTO.builder().tokenIsNull(Boolean.FALSE).build();
+            }
+        }
         String tokenBucketHashKey = TICKET_AVAILABILITY_TOKEN_BUCKET + requestParam.getTrainId();
+        // 记录令牌桶访问，用于热点 Key 探测
+        hotKeyDetectorProvider.ifAvailable(each -> each.record(tokenBucketHashKey));
+        // 租约未命中需要访问 Redis 令牌桶时，检查令牌桶是否存在，不存在则初始化
+        initTokenBucketIfAbsent(requestParam.getTrainId());
+        if (lease != null && refillLease(lease, leaseTakeCount)) {
+            return TokenResultDTO.builder().tokenIsNull(Boolean.FALSE).build();
+        }
+        return executeTakeTokenScript(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival(), seatTypeCountMap);
+    }
+
+    private void initTokenBucketIfAbsent(String trainId) {
+        String tokenBucketHashKey = TICKET_AVAILABILITY_TOKEN_BUCKET + trainId;
         // 检查令牌桶缓存是否存在
         Boolean hasKey = distributedCache.hasKey(tokenBucketHashKey);
-        if (!hasKey) {
-            // 如果缓存不存在，则尝试加锁以防止并发创建令牌桶缓存
-            RLock lock = redissonClient.getLock(String.format(LOCK_TICKET_AVAILABILITY_TOKEN_BUCKET, requestParam.getTrainId()));
-            if (!lock.tryLock()) {
-                throw new ServiceException("购票异常，请稍候再试");
+        if (hasKey) {
+            return;
+        }
+        // 如果缓存不存在，则尝试加锁以防止并发创建令牌桶缓存
+        RLock lock = redissonClient.getLock(String.format(LOCK_TICKET_AVAILABILITY_TOKEN_BUCKET, trainId));
+        if (!lock.tryLock()) {
+            throw new ServiceException("购票异常，请稍候再试");
+        }
+        try {
+            // 再次检查缓存是否存在，以处理并发情况
+            Boolean hasKeyTwo = distributedCache.hasKey(tokenBucketHashKey);
+            if (hasKeyTwo) {
+                return;
             }
-            try {
-                // 再次检查缓存是否存在，以处理并发情况
-                Boolean hasKeyTwo = distributedCache.hasKey(tokenBucketHashKey);
-                if (!hasKeyTwo) {
-                    // 根据火车类型获取座位类型列表
-                    List<Integer> seatTypes = VehicleTypeEnum.findSeatTypesByCode(trainDO.getTrainType());
-                    // 构建座位类型与可用令牌数的映射
-                    Map<String, String> ticketAvailabilityTokenMap = new HashMap<>();
-                    for (RouteDTO each : routeDTOList) {
-                        // 根据路线、座位类型获取座位数量
-                        List<SeatTypeCountDTO> seatTypeCountDTOList = seatService.listSeatTypeCount(Long.parseLong(requestParam.getTrainId()), each.getStartStation(), each.getEndStation(), seatTypes);
-                        for (SeatTypeCountDTO eachSeatTypeCountDTO : seatTypeCountDTOList) {
-                            // 构建缓存键名
-                            String buildCacheKey = StrUtil.join("_", each.getStartStation(), each.getEndStation(), eachSeatTypeCountDTO.getSeatType());
-                            // 将座位数量存入映射中
-                            ticketAvailabilityTokenMap.put(buildCacheKey, String.valueOf(eachSeatTypeCountDTO.getSeatCount()));
-                        }
-                    }
-                    // 将映射数据存入Redis中
-                    stringRedisTemplate.opsForHash().putAll(TICKET_AVAILABILITY_TOKEN_BUCKET + requestParam.getTrainId(), ticketAvailabilityTokenMap);
+            // 从分布式缓存中安全获取火车信息，如果缓存中不存在，则从数据库中查询并放入缓存
+            TrainDO trainDO = multistageCache.safeGet(
+                    TRAIN_INFO + trainId,
+                    TrainDO.class,
+                    () -> trainMapper.selectById(trainId),
+                    ADVANCE_TICKET_DAY,
+                    TimeUnit.DAYS);
+            // 根据火车编号和起始、终点站获取火车路线信息
+            List<RouteDTO> routeDTOList = trainStationService
+                    .listTrainStationRoute(trainId, trainDO.getStartStation(), trainDO.getEndStation());
+            // 根据火车类型获取座位类型列表
+            List<Integer> seatTypes = VehicleTypeEnum.findSeatTypesByCode(trainDO.getTrainType());
+            // 构建座位类型与可用令牌数的映射
+            Map<String, String> ticketAvailabilityTokenMap = new HashMap<>();
+            for (RouteDTO each : routeDTOList) {
+                // 根据路线、座位类型获取座位数量
+                List<SeatTypeCountDTO> seatTypeCountDTOList = seatService.listSeatTypeCount(Long.parseLong(trainId), each.getStartStation(), each.getEndStation(), seatTypes);
+                for (SeatTypeCountDTO eachSeatTypeCountDTO : seatTypeCountDTOList) {
+                    // 构建缓存键名
+                    String buildCacheKey = StrUtil.join("_", each.getStartStation(), each.getEndStation(), eachSeatTypeCountDTO.getSeatType());
+                    // 将座位数量存入映射中
+                    ticketAvailabilityTokenMap.put(buildCacheKey, String.valueOf(eachSeatTypeCountDTO.getSeatCount()));
                 }
-            } finally {
-                // 解锁
-                lock.unlock();
             }
+            // 每次初始化生成新的令牌桶版本，令牌桶重建前租出的令牌归还时版本不一致直接作废
+            ticketAvailabilityTokenMap.put(TOKEN_BUCKET_VERSION_FIELD, IdUtil.fastSimpleUUID());
+            // 将映射数据存入Redis中
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.opsForHash().putAll(tokenBucketHashKey, ticketAvailabilityTokenMap);
+        } finally {
+            // 解锁
+            lock.unlock();
         }
-        // 获取Lua脚本，用于从令牌桶中获取令牌
-        DefaultRedisScript<String> actual = Singleton.get(LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH, () -> {
-            DefaultRedisScript<String> redisScript = new DefaultRedisScript<>();
-            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH)));
-            redisScript.setResultType(String.class);
-            return redisScript;
-        });
-        Assert.notNull(actual);
-        // 统计购票请求中各座位类型的数量
-        Map<Integer, Long> seatTypeCountMap = requestParam.getPassengers().stream()
-                .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType, Collectors.counting()));
-        // 将座位类型数量映射转换为JSON数组
-        JSONArray seatTypeCountArray = seatTypeCountMap.entrySet().stream()
-                .map(entry -> {
-                    JSONObject jsonObject = new JSONObject();
-                    jsonObject.put("seatType", String.valueOf(entry.getKey()));
-                    jsonObject.put("count", String.valueOf(entry.getValue()));
-                    return jsonObject;
-                })
-                .collect(Collectors.toCollection(JSONArray::new));
-        // 根据购票请求获取取票路线信息
-        List<RouteDTO> takeoutRouteDTOList = trainStationService
-                .listTakeoutTrainStationRoute(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival());
-        // 构建Lua脚本的参数
-        String luaScriptKey = StrUtil.join("_", requestParam.getDeparture(), requestParam.getArrival());
-        // 执行Lua脚本，获取购票令牌结果
-        String resultStr = stringRedisTemplate.execute(actual, Lists.newArrayList(tokenBucketHashKey, luaScriptKey), JSON.toJSONString(seatTypeCountArray), JSON.toJSONString(takeoutRouteDTOList));
-        // 解析令牌结果
-        TokenResultDTO result = JSON.parseObject(resultStr, TokenResultDTO.class);
-        // 返回令牌结果，如果结果为空，则返回一个标记为令牌为空的DTO
-        return result == null
-                ? TokenResultDTO.builder().tokenIsNull(Boolean.TRUE).build()
-                : result;
     }
 
     /**
@@ -159,46 +189,35 @@ public final class TicketAvailabilityTokenBucket {
      * @param requestParam 回滚列车余量令牌入参
      */
     public void rollbackInBucket(TicketOrderDetailRespDTO requestParam) {
-        // 使用Singleton模式获取预编译的Redis脚本，以提高执行效率。
-        DefaultRedisScript<Long> actual = Singleton.get(LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH, () -> {
-            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
-            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH)));
-            redisScript.setResultType(Long.class);
-            return redisScript;
-        });
-        Assert.notNull(actual); // 确保脚本不为空。
-
-        // 统计不同座位类型的票数。
-        List<TicketOrderPassengerDetailRespDTO> passengerDetails = requestParam.getPassengerDetails();
-        Map<Integer, Long> seatTypeCountMap = passengerDetails.stream()
-                .collect(Collectors.groupingBy(TicketOrderPassengerDetailRespDTO::getSeatType, Collectors.counting()));
-
-        // 将座位类型和数量转换为JSON数组，作为Redis脚本的参数。
-        JSONArray seatTypeCountArray = seatTypeCountMap.entrySet().stream()
-                .map(entry -> {
-                    JSONObject jsonObject = new JSONObject();
-                    jsonObject.put("seatType", String.valueOf(entry.getKey()));
-                    jsonObject.put("count", String.valueOf(entry.getValue()));
-                    return jsonObject;
-                })
-                .collect(Collectors.toCollection(JSONArray::new));
-
-        // 获取Redis模板实例，用于执行Redis脚本。
-        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-
-        // 组合Redis脚本的hashKey和luaScriptKey。
-        String actualHashKey = TICKET_AVAILABILITY_TOKEN_BUCKET + requestParam.getTrainId();
-        String luaScriptKey = StrUtil.join("_", requestParam.getDeparture(), requestParam.getArrival());
-
-        // 查询购票路径，作为Redis脚本的另一个参数。
-        List<RouteDTO> takeoutRouteDTOList = trainStationService.listTakeoutTrainStationRoute(String.valueOf(requestParam.getTrainId()), requestParam.getDeparture(), requestParam.getArrival());
+        rollbackInBucket(String.valueOf(requestParam.getTrainId()), List.of(requestParam));
+    }
 
+    /**
+     * 批量回滚同一列车多笔订单的余量令牌，一般为订单批量超时关闭触发
+     * 多笔订单按令牌桶字段累加回滚数量后执行一次脚本
+     *
+     * @param trainId      列车 ID
+     * @param requestParam 同一列车的订单集合
+     */
+    public void rollbackInBucket(String trainId, List<TicketOrderDetailRespDTO> requestParam) {
+        TrainStationRouteIndex trainStationRouteIndex = trainStationRouteIndexCache.get(trainId);
+        Map<String, Long> tokenFieldCountMap = new HashMap<>();
+        for (TicketOrderDetailRespDTO each : requestParam) {
+            String[] takeoutTokenFieldPrefixes = trainStationRouteIndex.listTakeoutTokenFieldPrefix(each.getDeparture(), each.getArrival());
+            for (TicketOrderPassengerDetailRespDTO passengerDetail : each.getPassengerDetails()) {
+                for (String takeoutTokenFieldPrefix : takeoutTokenFieldPrefixes) {
+                    tokenFieldCountMap.merge(takeoutTokenFieldPrefix + passengerDetail.getSeatType(), 1L, Long::sum);
+                }
+            }
+        }
+        if (tokenFieldCountMap.isEmpty()) {
+            return;
+        }
         // 执行Redis脚本，回滚桶中的令牌数。
-        Long result = stringRedisTemplate.execute(actual, Lists.newArrayList(actualHashKey, luaScriptKey), JSON.toJSONString(seatTypeCountArray), JSON.toJSONString(takeoutRouteDTOList));
-
+        Long result = executeRollbackScript(trainId, tokenFieldCountMap);
         // 检查脚本执行结果，如果回滚失败，则记录日志并抛出异常。
         if (result == null || !Objects.equals(result, 0L)) {
-            log.error("回滚列车余票令牌失败，订单信息：{}", JSON.toJSONString(requestParam));
+            log.error("回滚列车余票令牌失败，列车 ID：{}，订单号：{}", trainId, requestParam.stream().map(TicketOrderDetailRespDTO::getOrderSn).toList());
             throw new ServiceException("回滚列车余票令牌失败");
         }
     }
@@ -212,6 +231,10 @@ public final class TicketAvailabilityTokenBucket {
         StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
         String tokenBucketHashKey = TICKET_AVAILABILITY_TOKEN_BUCKET + requestParam.getTrainId();
         stringRedisTemplate.delete(tokenBucketHashKey);
+        // 令牌桶会根据数据库重新初始化并生成新版本，本实例租用的令牌直接作废，其它实例的租约令牌归还时因版本不一致同样作废
+        tokenLeaseMap.values().stream()
+                .filter(each -> Objects.equals(each.trainId, requestParam.getTrainId()))
+                .forEach(TokenLease::drain);
     }
 
     public void putTokenInBucket() {
@@ -221,4 +244,204 @@ public final class TicketAvailabilityTokenBucket {
     public void initializeTokens() {
 
     }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (tokenLeaseSize <= 0) {
+            return;
+        }
+        tokenLeaseReturnExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ticket-availability-token-lease-return");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tokenLeaseReturnExecutor.scheduleWithFixedDelay(this::returnExpiredLeases, tokenLeaseTtlMillis, TOKEN_LEASE_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (tokenLeaseReturnExecutor == null) {
+            return;
+        }
+        tokenLeaseReturnExecutor.shutdownNow();
+        // 停机时归还全部未使用的租约令牌
+        tokenLeaseMap.values().forEach(each -> {
+            synchronized (each) {
+                returnLease(each);
+            }
+        });
+    }
+
+    /**
+     * 本实例租约不足时向 Redis 令牌桶整块租用，租约记录租用时的令牌桶版本
+     *
+     * @return 是否获取成功，返回 false 时需要直接访问 Redis 令牌桶
+     */
+    private boolean refillLease(TokenLease lease, int count) {
+        synchronized (lease) {
+            if (lease.tryAcquire(count)) {
+                return true;
+            }
+            // 租约已耗尽或过期，归还剩余令牌后重新整块租用
+            returnLease(lease);
+            // 先读取版本再租用令牌，租用期间令牌桶被重建时租约令牌归还会作废，只会少还不会多还
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            Object version = stringRedisTemplate.opsForHash().get(TICKET_AVAILABILITY_TOKEN_BUCKET + lease.trainId, TOKEN_BUCKET_VERSION_FIELD);
+            int leaseCount = Math.max(tokenLeaseSize, count);
+            TokenResultDTO result = executeTakeTokenScript(lease.trainId, lease.departure, lease.arrival, Map.of(lease.seatType, (long) leaseCount));
+            if (Boolean.TRUE.equals(result.getTokenIsNull())) {
+                // 剩余令牌不足一个租约时不再租用，交由 Redis 令牌桶精确扣减
+                return false;
+            }
+            lease.renew(leaseCount - count, System.currentTimeMillis() + tokenLeaseTtlMillis, version == null ? "" : version.toString());
+            return true;
+        }
+    }
+
+    private void returnExpiredLeases() {
+        long now = System.currentTimeMillis();
+        tokenLeaseMap.values().stream()
+                .filter(each -> each.isExpired(now) && each.remaining.get() > 0)
+                .forEach(each -> {
+                    synchronized (each) {
+                        if (each.isExpired(System.currentTimeMillis())) {
+                            try {
+                                returnLease(each);
+                            } catch (Throwable ex) {
+                                log.error("归还列车余票令牌租约失败，列车：{}，区间：{}-{}", each.trainId, each.departure, each.arrival, ex);
+                            }
+                        }
+                    }
+                });
+    }
+
+    private void returnLease(TokenLease lease) {
+        int remaining = lease.drain();
+        if (remaining <= 0) {
+            return;
+        }
+        DefaultRedisScript<Long> actual = Singleton.get(LUA_TICKET_AVAILABILITY_RETURN_TOKEN_LEASE_PATH, () -> {
+            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_RETURN_TOKEN_LEASE_PATH)));
+            redisScript.setResultType(Long.class);
+            return redisScript;
+        });
+        Assert.notNull(actual);
+        // 构建Lua脚本的参数：令牌桶版本、座位类型数量、座位类型与数量、归还路线字段前缀
+        String[] takeoutTokenFieldPrefixes = trainStationRouteIndexCache.get(lease.trainId).listTakeoutTokenFieldPrefix(lease.departure, lease.arrival);
+        Object[] args = new Object[4 + takeoutTokenFieldPrefixes.length];
+        args[0] = lease.version;
+        args[1] = "1";
+        fillTokenScriptArgs(args, 2, Map.of(lease.seatType, (long) remaining), takeoutTokenFieldPrefixes);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Long result = stringRedisTemplate.execute(actual, List.of(TICKET_AVAILABILITY_TOKEN_BUCKET + lease.trainId), args);
+        if (Objects.equals(result, 1L)) {
+            log.info("列车令牌桶已重建，作废本实例租约令牌，列车：{}，区间：{}-{}，数量：{}", lease.trainId, lease.departure, lease.arrival, remaining);
+        }
+    }
+
+    private TokenResultDTO executeTakeTokenScript(String trainId, String departure, String arrival, Map<Integer, Long> seatTypeCountMap) {
+        // 获取Lua脚本，用于从令牌桶中获取令牌
+        DefaultRedisScript<List> actual = Singleton.get(LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH, () -> {
+            DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH)));
+            redisScript.setResultType(List.class);
+            return redisScript;
+        });
+        Assert.notNull(actual);
+        // 构建Lua脚本的参数：购票区间字段前缀、座位类型数量、座位类型与数量、扣减路线字段前缀
+        String[] takeoutTokenFieldPrefixes = trainStationRouteIndexCache.get(trainId).listTakeoutTokenFieldPrefix(departure, arrival);
+        Object[] args = new Object[2 + seatTypeCountMap.size() * 2 + takeoutTokenFieldPrefixes.length];
+        args[0] = TrainStationRouteIndex.getTokenFieldPrefix(departure, arrival);
+        args[1] = String.valueOf(seatTypeCountMap.size());
+        fillTokenScriptArgs(args, 2, seatTypeCountMap, takeoutTokenFieldPrefixes);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        // 执行Lua脚本，返回令牌不足的座位类型和数量，为空代表扣减成功
+        List<String> tokenIsNullSeatTypeCounts = stringRedisTemplate.execute(actual, List.of(TICKET_AVAILABILITY_TOKEN_BUCKET + trainId), args);
+        if (tokenIsNullSeatTypeCounts == null) {
+            return TokenResultDTO.builder().tokenIsNull(Boolean.TRUE).build();
+        }
+        return tokenIsNullSeatTypeCounts.isEmpty()
+                ? TokenResultDTO.builder().tokenIsNull(Boolean.FALSE).build()
+                : TokenResultDTO.builder().tokenIsNull(Boolean.TRUE).tokenIsNullSeatTypeCounts(tokenIsNullSeatTypeCounts).build();
+    }
+
+    private Long executeRollbackScript(String trainId, Map<String, Long> tokenFieldCountMap) {
+        // 使用Singleton模式获取预编译的Redis脚本，以提高执行效率。
+        DefaultRedisScript<Long> actual = Singleton.get(LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH, () -> {
+            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH)));
+            redisScript.setResultType(Long.class);
+            return redisScript;
+        });
+        Assert.notNull(actual); // 确保脚本不为空。
+        // 构建Lua脚本的参数：令牌桶字段与回滚数量交替排列
+        Object[] args = new Object[tokenFieldCountMap.size() * 2];
+        int offset = 0;
+        for (Map.Entry<String, Long> entry : tokenFieldCountMap.entrySet()) {
+            args[offset++] = entry.getKey();
+            args[offset++] = String.valueOf(entry.getValue());
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        return stringRedisTemplate.execute(actual, List.of(TICKET_AVAILABILITY_TOKEN_BUCKET + trainId), args);
+    }
+
+    private void fillTokenScriptArgs(Object[] args, int offset, Map<Integer, Long> seatTypeCountMap, String[] takeoutTokenFieldPrefixes) {
+        // 座位类型与数量交替排列，之后紧跟路线字段前缀
+        for (Map.Entry<Integer, Long> entry : seatTypeCountMap.entrySet()) {
+            args[offset++] = String.valueOf(entry.getKey());
+            args[offset++] = String.valueOf(entry.getValue());
+        }
+        System.arraycopy(takeoutTokenFieldPrefixes, 0, args, offset, takeoutTokenFieldPrefixes.length);
+    }
+
+    /**
+     * 本实例租用的列车出发站至到达站座位类型令牌
+     */
+    private static final class TokenLease {
+
+        private final String trainId;
+        private final String departure;
+        private final String arrival;
+        private final Integer seatType;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile long expireAt;
+        private volatile String version = "";
+
+        private TokenLease(String trainId, String departure, String arrival, Integer seatType) {
+            this.trainId = trainId;
+            this.departure = departure;
+            this.arrival = arrival;
+            this.seatType = seatType;
+        }
+
+        private boolean tryAcquire(int count) {
+            if (isExpired(System.currentTimeMillis())) {
+                return false;
+            }
+            for (; ; ) {
+                int current = remaining.get();
+                if (current < count) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - count)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+
+        private int drain() {
+            return remaining.getAndSet(0);
+        }
+
+        private void renew(int count, long expireAt, String version) {
+            this.version = version;
+            this.expireAt = expireAt;
+            remaining.set(count);
+        }
+    }
 }
@@ -16,7 +16,7 @@ import org.opengoofy.index12306.biz.ticketservice.dto.req.RegionStationQueryReqD
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.RegionStationQueryRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.StationQueryRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.RegionStationService;
-import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.cache.MultistageCache;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
 import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
 import org.opengoofy.index12306.framework.starter.common.enums.FlagEnum;
@@ -43,7 +43,7 @@ public class RegionStationImpl implements RegionStationService {
 
     private final RegionMapper regionMapper;
     private final StationMapper stationMapper;
-    private final DistributedCache distributedCache;
+    private final MultistageCache multistageCache;
     private final RedissonClient redissonClient;
 
     /**
@@ -103,7 +103,7 @@ public class RegionStationImpl implements RegionStationService {
      */
     @Override
     public List<StationQueryRespDTO> listAllStation() {
-        return distributedCache.safeGet(
+        return multistageCache.safeGet(
                 STATION_ALL,
                 List.class,
                 () -> BeanUtil.convert(stationMapper.selectList(Wrappers.emptyWrapper()), StationQueryRespDTO.class),
@@ -114,14 +114,14 @@ public class RegionStationImpl implements RegionStationService {
 
     private  List<RegionStationQueryRespDTO> safeGetRegionStation(final String key, CacheLoader<String> loader, String param) {
         List<RegionStationQueryRespDTO> result;
-        if (CollUtil.isNotEmpty(result = JSON.parseArray(distributedCache.get(key, String.class), RegionStationQueryRespDTO.class))) {
+        if (CollUtil.isNotEmpty(result = JSON.parseArray(multistageCache.get(key, String.class), RegionStationQueryRespDTO.class))) {
             return result;
         }
         String lockKey = String.format(LOCK_QUERY_REGION_STATION_LIST, param);
         RLock lock = redissonClient.getLock(lockKey);
         lock.lock();
         try {
-            if (CollUtil.isEmpty(result = JSON.parseArray(distributedCache.get(key, String.class), RegionStationQueryRespDTO.class))) {
+            if (CollUtil.isEmpty(result = JSON.parseArray(multistageCache.get(key, String.class), RegionStationQueryRespDTO.class))) {
                 if (CollUtil.isEmpty(result = loadAndSet(key, loader))) {
                     return Collections.emptyList();
                 }
@@ -138,7 +138,7 @@ public class RegionStationImpl implements RegionStationService {
             return Collections.emptyList();
         }
         List<RegionStationQueryRespDTO> respDTOList = JSON.parseArray(result, RegionStationQueryRespDTO.class);
-        distributedCache.put(
+        multistageCache.put(
                 key,
                 result,
                 ADVANCE_TICKET_DAY,
@@ -4,7 +4,6 @@ package org.opengoofy.index12306.biz.ticketservice.service.impl;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
@@ -16,12 +15,17 @@ import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatTypeCountDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.inventory.SeatSegmentBitmapInventory;
+import org.opengoofy.index12306.biz.ticketservice.service.inventory.TrainSeatSegmentBitmap;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_CARRIAGE_REMAINING_TICKET;
@@ -36,6 +40,14 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
     private final SeatMapper seatMapper;
     private final TrainStationService trainStationService;
     private final DistributedCache distributedCache;
+    private final SeatSegmentBitmapInventory seatSegmentBitmapInventory;
+
+    /**
+     * 座位库存查询方式，配置为 bitmap 时使用进程内座位区段位图
+     */
+    @Value("${ticket.seat.inventory.type:}")
+    private String seatInventoryType;
+
     /**
      * 获取列车车厢中可用的座位集合
      *
@@ -48,6 +60,10 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
      */
     @Override
     public List<String> listAvailableSeat(String trainId, String carriageNumber, Integer seatType, String departure, String arrival) {
+        TrainSeatSegmentBitmap seatSegmentBitmap = getSeatSegmentBitmap(trainId);
+        if (seatSegmentBitmap != null) {
+            return seatSegmentBitmap.listAvailableSeat(carriageNumber, seatType, departure, arrival);
+        }
         LambdaQueryWrapper<SeatDO> queryWrapper = Wrappers.lambdaQuery(SeatDO.class)
                 .eq(SeatDO::getTrainId, trainId)
                 .eq(SeatDO::getCarriageNumber, carriageNumber)
@@ -70,6 +86,10 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
      */
     @Override
     public List<Integer> listSeatRemainingTicket(String trainId, String departure, String arrival, List<String> trainCarriageList) {
+        TrainSeatSegmentBitmap seatSegmentBitmap = getSeatSegmentBitmap(trainId);
+        if (seatSegmentBitmap != null) {
+            return seatSegmentBitmap.listSeatRemainingTicket(departure, arrival, trainCarriageList);
+        }
         String keySuffix = StrUtil.join("_", trainId, departure, arrival);
         if (distributedCache.hasKey(TRAIN_STATION_CARRIAGE_REMAINING_TICKET + keySuffix)) {
             // 如果缓存中存在相关的key 则从数据库中查询
@@ -100,6 +120,10 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
      */
     @Override
     public List<String> listUsableCarriageNumber(String trainId, Integer carriageType, String departure, String arrival) {
+        TrainSeatSegmentBitmap seatSegmentBitmap = getSeatSegmentBitmap(trainId);
+        if (seatSegmentBitmap != null) {
+            return seatSegmentBitmap.listUsableCarriageNumber(carriageType, departure, arrival);
+        }
         LambdaQueryWrapper<SeatDO> queryWrapper = Wrappers.lambdaQuery(SeatDO.class)
                 .eq(SeatDO::getTrainId, trainId)
                 .eq(SeatDO::getSeatType, carriageType)
@@ -122,6 +146,10 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
      */
     @Override
     public List<SeatTypeCountDTO> listSeatTypeCount(Long trainId, String startStation, String endStation, List<Integer> seatTypes) {
+        TrainSeatSegmentBitmap seatSegmentBitmap = getSeatSegmentBitmap(String.valueOf(trainId));
+        if (seatSegmentBitmap != null) {
+            return seatSegmentBitmap.listSeatTypeCount(startStation, endStation, seatTypes);
+        }
         return seatMapper.listSeatTypeCount(trainId, startStation, endStation, seatTypes);
     }
     /**
@@ -131,23 +159,39 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
      * @param departure                   出发站
      * @param arrival                     到达站
      * @param trainPurchaseTicketRespList 乘车人以及座位信息
+     * @return 锁定的座位记录数量
      */
     @Override
-    public void lockSeat(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketRespList) {
-        List<RouteDTO> routeList = trainStationService.listTakeoutTrainStationRoute(trainId, departure, arrival);
-        trainPurchaseTicketRespList.forEach(each -> routeList.forEach(item -> {
-            LambdaUpdateWrapper<SeatDO> updateWrapper = Wrappers.lambdaUpdate(SeatDO.class)
-                    .eq(SeatDO::getTrainId, trainId)
-                    .eq(SeatDO::getCarriageNumber, each.getCarriageNumber())
-                    .eq(SeatDO::getStartStation, item.getStartStation())
-                    .eq(SeatDO::getEndStation, item.getEndStation())
-                    .eq(SeatDO::getSeatNumber, each.getSeatNumber());
-            SeatDO updateSeatDO = SeatDO.builder()
-                    .seatStatus(SeatStatusEnum.LOCKED.getCode())
-                    .build();
-            seatMapper.update(updateSeatDO, updateWrapper);
-        }));
+    public int lockSeat(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketRespList) {
+        TrainSeatSegmentBitmap seatSegmentBitmap = getSeatSegmentBitmap(trainId);
+        if (seatSegmentBitmap != null && !seatSegmentBitmapInventory.occupy(seatSegmentBitmap, departure, arrival, trainPurchaseTicketRespList)) {
+            throw new ServiceException("座位已被占用，请重新购票");
+        }
+        List<SeatDO> seatList = buildSeatList(trainPurchaseTicketRespList);
+        // 出发站至到达站座位记录仍可用才说明整个区间未被占用，受影响行数不足即存在并发冲突
+        int lockedCount = seatMapper.updateSeatStatus(
+                Long.parseLong(trainId),
+                seatList,
+                List.of(new RouteDTO(departure, arrival)),
+                SeatStatusEnum.LOCKED.getCode(),
+                SeatStatusEnum.AVAILABLE.getCode()
+        );
+        if (lockedCount < seatList.size()) {
+            if (seatSegmentBitmap != null) {
+                seatSegmentBitmapInventory.invalidate(trainId);
+            }
+            throw new ServiceException("座位已被占用，请重新购票");
+        }
+        // 沿途区段可能已被其它不重叠区间的车票锁定，无需校验原状态
+        List<RouteDTO> alongRouteList = trainStationService.listTakeoutTrainStationRoute(trainId, departure, arrival).stream()
+                .filter(each -> !Objects.equals(each.getStartStation(), departure) || !Objects.equals(each.getEndStation(), arrival))
+                .collect(Collectors.toList());
+        if (CollUtil.isNotEmpty(alongRouteList)) {
+            lockedCount += seatMapper.updateSeatStatus(Long.parseLong(trainId), seatList, alongRouteList, SeatStatusEnum.LOCKED.getCode(), null);
+        }
+        return lockedCount;
     }
+
     /**
      * 解锁选中以及沿途车票状态
      *
@@ -155,21 +199,38 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
      * @param departure                  出发站
      * @param arrival                    到达站
      * @param trainPurchaseTicketResults 乘车人以及座位信息
+     * @return 解锁的座位记录数量
      */
     @Override
-    public void unlock(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults) {
+    public int unlock(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults) {
         List<RouteDTO> routeList = trainStationService.listTakeoutTrainStationRoute(trainId, departure, arrival);
-        trainPurchaseTicketResults.forEach(each -> routeList.forEach(item -> {
-            LambdaUpdateWrapper<SeatDO> updateWrapper = Wrappers.lambdaUpdate(SeatDO.class)
-                    .eq(SeatDO::getTrainId, trainId)
-                    .eq(SeatDO::getCarriageNumber, each.getCarriageNumber())
-                    .eq(SeatDO::getStartStation, item.getStartStation())
-                    .eq(SeatDO::getEndStation, item.getEndStation())
-                    .eq(SeatDO::getSeatNumber, each.getSeatNumber());
-            SeatDO updateSeatDO = SeatDO.builder()
-                    .seatStatus(SeatStatusEnum.AVAILABLE.getCode())
-                    .build();
-            seatMapper.update(updateSeatDO, updateWrapper);
-        }));
+        int unlockedCount = seatMapper.updateSeatStatus(
+                Long.parseLong(trainId),
+                buildSeatList(trainPurchaseTicketResults),
+                routeList,
+                SeatStatusEnum.AVAILABLE.getCode(),
+                null
+        );
+        TrainSeatSegmentBitmap seatSegmentBitmap = getSeatSegmentBitmap(trainId);
+        if (seatSegmentBitmap != null) {
+            seatSegmentBitmapInventory.release(seatSegmentBitmap, departure, arrival, trainPurchaseTicketResults);
+        }
+        return unlockedCount;
+    }
+
+    private List<SeatDO> buildSeatList(List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults) {
+        return trainPurchaseTicketResults.stream()
+                .map(each -> SeatDO.builder()
+                        .carriageNumber(each.getCarriageNumber())
+                        .seatNumber(each.getSeatNumber())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private TrainSeatSegmentBitmap getSeatSegmentBitmap(String trainId) {
+        if (!StrUtil.equals(seatInventoryType, "bitmap")) {
+            return null;
+        }
+        return seatSegmentBitmapInventory.getSeatSegmentBitmap(trainId);
     }
 }
@@ -4,6 +4,7 @@ package org.opengoofy.index12306.biz.ticketservice.service.impl;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -22,30 +23,38 @@ import org.opengoofy.index12306.biz.ticketservice.dto.req.*;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.RefundTicketRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketOrderDetailRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPageQueryRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseQueueRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.remote.PayRemoteService;
 import org.opengoofy.index12306.biz.ticketservice.remote.TicketOrderRemoteService;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.*;
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
 import org.opengoofy.index12306.biz.ticketservice.service.TicketService;
-import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
 import org.opengoofy.index12306.biz.ticketservice.service.cache.SeatMarginCacheLoader;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainStationRemainingTicketCacheUpdater;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TokenResultDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.TrainSeatTypeSelector;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.sequencer.PurchaseTicketSequencer;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketAvailabilityTokenBucket;
 import org.opengoofy.index12306.biz.ticketservice.toolkit.DateUtil;
 import org.opengoofy.index12306.biz.ticketservice.toolkit.TimeStringComparator;
 import org.opengoofy.index12306.framework.starter.bases.ApplicationContextHolder;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.cache.MultistageCache;
+import org.opengoofy.index12306.framework.starter.cache.hotkey.HotKeyDetector;
 import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
 import org.opengoofy.index12306.framework.starter.common.toolkit.BeanUtil;
+import org.opengoofy.index12306.framework.starter.convention.exception.AbstractException;
 import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
 import org.opengoofy.index12306.framework.starter.convention.result.Result;
 import org.opengoofy.index12306.framework.starter.designpattern.chain.AbstractChainContext;
 import org.opengoofy.index12306.frameworks.starter.user.core.UserContext;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserInfoDTO;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.env.ConfigurableEnvironment;
@@ -57,9 +66,14 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -79,25 +93,34 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
     private final TrainStationRelationMapper trainStationRelationMapper;
     private final TrainStationPriceMapper trainStationPriceMapper;
     private final DistributedCache distributedCache;
+    private final MultistageCache multistageCache;
+    private final ObjectProvider<HotKeyDetector> hotKeyDetectorProvider;
     private final TicketOrderRemoteService ticketOrderRemoteService;
     private final PayRemoteService payRemoteService;
     private final StationMapper stationMapper;
     private final SeatService seatService;
-    private final TrainStationService trainStationService;
     private final TrainSeatTypeSelector trainSeatTypeSelector;
     private final SeatMarginCacheLoader seatMarginCacheLoader;
+    private final TrainStationRemainingTicketCacheUpdater trainStationRemainingTicketCacheUpdater;
     private final AbstractChainContext<TicketPageQueryReqDTO> ticketPageQueryAbstractChainContext;
     private final AbstractChainContext<PurchaseTicketReqDTO> purchaseTicketAbstractChainContext;
     private final AbstractChainContext<RefundTicketReqDTO> refundReqDTOAbstractChainContext;
     private final RedissonClient redissonClient;
     private final ConfigurableEnvironment environment;
     private final TicketAvailabilityTokenBucket ticketAvailabilityTokenBucket;
+    private final PurchaseTicketSequencer purchaseTicketSequencer;
+    @Qualifier("purchaseTicketsQueueThreadPoolExecutor")
+    private final ThreadPoolExecutor purchaseTicketsQueueThreadPoolExecutor;
     private TicketService ticketService;
 
     @Value("${ticket.availability.cache-update.type:}")
     private String ticketAvailabilityCacheUpdateType;
     @Value("${framework.cache.redis.prefix:}")
     private String cacheRedisPrefix;
+    @Value("${ticket.purchase.sequencer.timeout-seconds:10}")
+    private long purchaseSequencerTimeoutSeconds;
+    @Value("${ticket.purchase.queue.result-timeout-minutes:30}")
+    private long purchaseQueueResultTimeoutMinutes;
 
     /**
      * 分页查询火车票信息。
@@ -147,6 +170,8 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         // 处理车次信息的查询和缓存更新。
         List<TicketListDTO> seatResults = new ArrayList<>();
         String buildRegionTrainStationHashKey = String.format(REGION_TRAIN_STATION, stationDetails.get(0), stationDetails.get(1));
+        // 记录出发地至目的地车次缓存访问，用于热点 Key 探测
+        hotKeyDetectorProvider.ifAvailable(each -> each.record(buildRegionTrainStationHashKey));
         Map<Object, Object> regionTrainStationAllMap = stringRedisTemplate.opsForHash().entries(buildRegionTrainStationHashKey);
         if (MapUtil.isEmpty(regionTrainStationAllMap)) {
             RLock lock = redissonClient.getLock(LOCK_REGION_TRAIN_STATION);
@@ -160,7 +185,7 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
                             .eq(TrainStationRelationDO::getEndRegion, stationDetails.get(1));
                     List<TrainStationRelationDO> trainStationRelationList = trainStationRelationMapper.selectList(queryWrapper);
                     for (TrainStationRelationDO each : trainStationRelationList) {
-                        TrainDO trainDO = distributedCache.safeGet(
+                        TrainDO trainDO = multistageCache.safeGet(
                                 TRAIN_INFO + each.getTrainId(),
                                 TrainDO.class,
                                 () -> trainMapper.selectById(each.getTrainId()),
@@ -184,28 +209,17 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
             seatResults = regionTrainStationAllMap.values().stream().map(each -> JSON.parseObject(each.toString(), TicketListDTO.class)).toList();
         }
         seatResults = seatResults.stream().sorted(new TimeStringComparator()).toList();
-        for (TicketListDTO each : seatResults) {
-            // 从缓存中获取座位类型和价格信息，并计算余票。
-            String trainStationPriceStr = distributedCache.safeGet(
-                    String.format(TRAIN_STATION_PRICE, each.getTrainId(), each.getDeparture(), each.getArrival()),
-                    String.class,
-                    () -> {
-                        LambdaQueryWrapper<TrainStationPriceDO> trainStationPriceQueryWrapper = Wrappers.lambdaQuery(TrainStationPriceDO.class)
-                                .eq(TrainStationPriceDO::getDeparture, each.getDeparture())
-                                .eq(TrainStationPriceDO::getArrival, each.getArrival())
-                                .eq(TrainStationPriceDO::getTrainId, each.getTrainId());
-                        return JSON.toJSONString(trainStationPriceMapper.selectList(trainStationPriceQueryWrapper));
-                    },
-                    ADVANCE_TICKET_DAY,
-                    TimeUnit.DAYS
-            );
-            List<TrainStationPriceDO> trainStationPriceDOList = JSON.parseArray(trainStationPriceStr, TrainStationPriceDO.class);
+        // 批量从缓存中获取座位类型和价格信息，未命中的车次一次查询数据库。
+        List<List<TrainStationPriceDO>> trainStationPriceLists = listTrainStationPrice(seatResults);
+        for (int index = 0; index < seatResults.size(); index++) {
+            TicketListDTO each = seatResults.get(index);
+            List<TrainStationPriceDO> trainStationPriceDOList = trainStationPriceLists.get(index);
             List<SeatClassDTO> seatClassList = new ArrayList<>();
             trainStationPriceDOList.forEach(item -> {
                 // 组装座位类型、价格和余票信息。
                 String seatType = String.valueOf(item.getSeatType());
-                String keySuffix = StrUtil.join("_", each.getTrainId(), item.getDeparture(), item.getArrival());
-                Object quantityObj = stringRedisTemplate.opsForHash().get(TRAIN_STATION_REMAINING_TICKET + keySuffix, seatType);
+                String trainStationRemainingTicketKey = String.format(TRAIN_STATION_REMAINING_TICKET, each.getTrainId(), item.getDeparture(), item.getArrival());
+                Object quantityObj = stringRedisTemplate.opsForHash().get(trainStationRemainingTicketKey, seatType);
                 int quantity = Optional.ofNullable(quantityObj)
                         .map(Object::toString)
                         .map(Integer::parseInt)
@@ -253,6 +267,8 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
 
         // 根据出发站和到达站的信息构建缓存的键，用于获取具体的车次信息。
         String buildRegionTrainStationHashKey = String.format(REGION_TRAIN_STATION, stationDetails.get(0), stationDetails.get(1));
+        // 记录出发地至目的地车次缓存访问，用于热点 Key 探测
+        hotKeyDetectorProvider.ifAvailable(each -> each.record(buildRegionTrainStationHashKey));
 
         // 从缓存中获取所有车次的信息。
         Map<Object, Object> regionTrainStationAllMap = stringRedisTemplate.opsForHash().entries(buildRegionTrainStationHashKey);
@@ -263,25 +279,16 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
                 .sorted(new TimeStringComparator())
                 .toList();
 
-        // 构建查询车次价格的缓存键列表。
-        List<String> trainStationPriceKeys = seatResults.stream()
-                .map(each -> String.format(cacheRedisPrefix + TRAIN_STATION_PRICE, each.getTrainId(), each.getDeparture(), each.getArrival()))
-                .toList();
-
-        // 通过管道模式批量从缓存中获取车次的价格信息。
-        List<Object> trainStationPriceObjs = stringRedisTemplate.executePipelined((RedisCallback<String>) connection -> {
-            trainStationPriceKeys.forEach(each -> connection.stringCommands().get(each.getBytes()));
-            return null;
-        });
+        // 批量从缓存中获取车次的价格信息，未命中的车次一次查询数据库。
+        List<List<TrainStationPriceDO>> trainStationPriceLists = listTrainStationPrice(seatResults);
 
         // 处理车次价格信息，将其转换为对应的DO对象列表，并准备查询余票的缓存键列表。
         List<TrainStationPriceDO> trainStationPriceDOList = new ArrayList<>();
         List<String> trainStationRemainingKeyList = new ArrayList<>();
-        for (Object each : trainStationPriceObjs) {
-            List<TrainStationPriceDO> trainStationPriceList = JSON.parseArray(each.toString(), TrainStationPriceDO.class);
+        for (List<TrainStationPriceDO> trainStationPriceList : trainStationPriceLists) {
             trainStationPriceDOList.addAll(trainStationPriceList);
             for (TrainStationPriceDO item : trainStationPriceList) {
-                String trainStationRemainingKey = cacheRedisPrefix + TRAIN_STATION_REMAINING_TICKET + StrUtil.join("_", item.getTrainId(), item.getDeparture(), item.getArrival());
+                String trainStationRemainingKey = cacheRedisPrefix + String.format(TRAIN_STATION_REMAINING_TICKET, item.getTrainId(), item.getDeparture(), item.getArrival());
                 trainStationRemainingKeyList.add(trainStationRemainingKey);
             }
         }
@@ -389,13 +396,18 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
             throw new ServiceException("列车站点已无余票");
         }
 
+        // 定序器模式下同一列车的全部购票请求（包括多座位类型购票）交由列车购票队列串行处理，无需获取本地锁以及分布式锁
+        if (purchaseTicketSequencer.isEnabled()) {
+            return purchaseTicketsBySequencer(requestParam);
+        }
+        Map<Integer, List<PurchaseTicketPassengerDetailDTO>> seatTypeMap = requestParam.getPassengers().stream()
+                .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType));
+
         // 根据座位类型为每个购票请求分配本地锁和分布式锁，以确保并发访问的线程安全。
         // v1 版本购票存在 4 个较为严重的问题，v2 版本相比较 v1 版本更具有业务特点以及性能，整体提升较大
         // 写了详细的 v2 版本购票升级指南，详情查看：https://nageoffer.com/12306/question
         List<ReentrantLock> localLockList = new ArrayList<>();
         List<RLock> distributedLockList = new ArrayList<>();
-        Map<Integer, List<PurchaseTicketPassengerDetailDTO>> seatTypeMap = requestParam.getPassengers().stream()
-                .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType));
         seatTypeMap.forEach((searType, count) -> {
             String lockKey = environment.resolvePlaceholders(String.format(LOCK_PURCHASE_TICKETS_V2, requestParam.getTrainId(), searType));
             ReentrantLock localLock = localLockMap.getIfPresent(lockKey);
@@ -435,6 +447,116 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         }
     }
 
+    private TicketPurchaseRespDTO purchaseTicketsBySequencer(PurchaseTicketReqDTO requestParam) {
+        // 定序器线程不持有请求线程的用户上下文，提交前先行捕获
+        UserInfoDTO userInfo = captureUserInfo();
+        CompletableFuture<TicketPurchaseRespDTO> future = purchaseTicketSequencer.submit(requestParam.getTrainId(), () -> {
+            UserContext.setUser(userInfo);
+            try {
+                return ticketService.executePurchaseTickets(requestParam);
+            } finally {
+                UserContext.removeUser();
+            }
+        });
+        if (future == null) {
+            throw new ServiceException("当前购票人数过多，请稍后再试");
+        }
+        try {
+            return future.get(purchaseSequencerTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(false);
+            throw new ServiceException("购票排队超时，请稍后在订单列表中查看购票结果");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            log.error("购票定序器执行购票失败，请求参数：{}", JSON.toJSONString(requestParam), ex.getCause());
+            throw new ServiceException("购票失败，请稍后再试");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("购票失败，请稍后再试");
+        }
+    }
+
+    /**
+     * 排队购买车票，请求线程只负责写入排队状态并提交任务，购票流程由排队购票线程池执行
+     * 接口幂等锁在请求返回时即释放，因此为用户同一行程写入排队中标记，直至购票结果写入后删除，防止排队期间重复提交
+     *
+     * @param requestParam 购票请求参数
+     * @return 排队凭证
+     */
+    @Override
+    public TicketPurchaseQueueRespDTO purchaseTicketsQueue(PurchaseTicketReqDTO requestParam) {
+        UserInfoDTO userInfo = captureUserInfo();
+        String queueTicket = IdUtil.fastSimpleUUID();
+        String resultKey = String.format(TICKET_PURCHASE_QUEUE_RESULT, userInfo.getUsername(), queueTicket);
+        String queueUserKey = String.format(TICKET_PURCHASE_QUEUE_USER, userInfo.getUsername(), requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival());
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Boolean queued = stringRedisTemplate.opsForValue().setIfAbsent(queueUserKey, queueTicket, purchaseQueueResultTimeoutMinutes, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(queued)) {
+            throw new ServiceException("当前行程已在排队购票中，请等待排队结果");
+        }
+        TicketPurchaseQueueRespDTO waitingResult = TicketPurchaseQueueRespDTO.builder()
+                .queueTicket(queueTicket)
+                .status(PurchaseTicketQueueStatusEnum.WAITING.getCode())
+                .build();
+        distributedCache.put(resultKey, waitingResult, purchaseQueueResultTimeoutMinutes, TimeUnit.MINUTES);
+        try {
+            purchaseTicketsQueueThreadPoolExecutor.execute(() -> {
+                UserContext.setUser(userInfo);
+                TicketPurchaseQueueRespDTO actualResult = TicketPurchaseQueueRespDTO.builder()
+                        .queueTicket(queueTicket)
+                        .status(PurchaseTicketQueueStatusEnum.PROCESSING.getCode())
+                        .build();
+                try {
+                    distributedCache.put(resultKey, actualResult, purchaseQueueResultTimeoutMinutes, TimeUnit.MINUTES);
+                    actualResult.setPurchaseResult(ticketService.purchaseTicketsV2(requestParam));
+                    actualResult.setStatus(PurchaseTicketQueueStatusEnum.SUCCESS.getCode());
+                } catch (Throwable ex) {
+                    if (!(ex instanceof AbstractException)) {
+                        log.error("排队购票执行失败，请求参数：{}", JSON.toJSONString(requestParam), ex);
+                    }
+                    actualResult.setStatus(PurchaseTicketQueueStatusEnum.FAILED.getCode());
+                    actualResult.setMessage(ex instanceof AbstractException abstractException ? abstractException.getErrorMessage() : "购票失败，请稍后再试");
+                } finally {
+                    distributedCache.put(resultKey, actualResult, purchaseQueueResultTimeoutMinutes, TimeUnit.MINUTES);
+                    distributedCache.delete(queueUserKey);
+                    UserContext.removeUser();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            distributedCache.delete(resultKey);
+            distributedCache.delete(queueUserKey);
+            throw new ServiceException("当前排队人数过多，请稍后再试");
+        }
+        return waitingResult;
+    }
+
+    /**
+     * 查询排队购票结果，只能查询当前登录用户的排队凭证
+     *
+     * @param queueTicket 排队凭证
+     * @return 排队购票结果
+     */
+    @Override
+    public TicketPurchaseQueueRespDTO queryPurchaseTicketsQueue(String queueTicket) {
+        String resultKey = String.format(TICKET_PURCHASE_QUEUE_RESULT, UserContext.getUsername(), queueTicket);
+        TicketPurchaseQueueRespDTO result = distributedCache.get(resultKey, TicketPurchaseQueueRespDTO.class);
+        if (result == null) {
+            throw new ServiceException("排队凭证不存在或已过期");
+        }
+        return result;
+    }
+
+    private UserInfoDTO captureUserInfo() {
+        return UserInfoDTO.builder()
+                .userId(UserContext.getUserId())
+                .username(UserContext.getUsername())
+                .realName(UserContext.getRealName())
+                .token(UserContext.getToken())
+                .build();
+    }
+
     /**
      * 执行购票操作。
      * 该方法负责根据请求参数购买车票，包括与分布式缓存交互获取列车信息、选择座位、创建订单等步骤。
@@ -451,7 +573,7 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         // 从请求参数中获取列车ID
         String trainId = requestParam.getTrainId();
         // 从分布式缓存中安全获取列车信息，如果缓存中不存在，则从数据库中加载并放入缓存
-        TrainDO trainDO = distributedCache.safeGet(
+        TrainDO trainDO = multistageCache.safeGet(
                 TRAIN_INFO + trainId,
                 TrainDO.class,
                 () -> trainMapper.selectById(trainId),
@@ -573,17 +695,9 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
             }
             ticketAvailabilityTokenBucket.rollbackInBucket(ticketOrderDetail);
             try {
-                StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-                Map<Integer, List<TicketOrderPassengerDetailRespDTO>> seatTypeMap = trainPurchaseTicketResults.stream()
-                        .collect(Collectors.groupingBy(TicketOrderPassengerDetailRespDTO::getSeatType));
-                List<RouteDTO> routeDTOList = trainStationService.listTakeoutTrainStationRoute(trainId, departure, arrival);
-                routeDTOList.forEach(each -> {
-                    String keySuffix = StrUtil.join("_", trainId, each.getStartStation(), each.getEndStation());
-                    seatTypeMap.forEach((seatType, ticketOrderPassengerDetailRespDTOList) -> {
-                        stringRedisTemplate.opsForHash()
-                                .increment(TRAIN_STATION_REMAINING_TICKET + keySuffix, String.valueOf(seatType), ticketOrderPassengerDetailRespDTOList.size());
-                    });
-                });
+                Map<Integer, Integer> seatTypeCountMap = trainPurchaseTicketResults.stream()
+                        .collect(Collectors.groupingBy(TicketOrderPassengerDetailRespDTO::getSeatType, Collectors.summingInt(each -> 1)));
+                trainStationRemainingTicketCacheUpdater.adjust("cancel", trainId, departure, arrival, seatTypeCountMap);
             } catch (Throwable ex) {
                 log.error("[取消关闭订单] 订单号：{} 回滚列车Cache余票失败", requestParam.getOrderSn(), ex);
                 throw ex;
@@ -638,6 +752,41 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         return null; // 暂时返回空实体
     }
 
+    /**
+     * 批量获取车次出发站至到达站的座位价格，返回结果与入参车次一一对应
+     * 缓存一次批量查询，未命中的车次通过一次 IN 查询加载并写回缓存
+     */
+    private List<List<TrainStationPriceDO>> listTrainStationPrice(List<TicketListDTO> seatResults) {
+        Map<String, TicketListDTO> trainStationPriceKeyMap = new HashMap<>();
+        List<String> trainStationPriceKeys = new ArrayList<>(seatResults.size());
+        for (TicketListDTO each : seatResults) {
+            String trainStationPriceKey = String.format(TRAIN_STATION_PRICE, each.getTrainId(), each.getDeparture(), each.getArrival());
+            trainStationPriceKeyMap.putIfAbsent(trainStationPriceKey, each);
+            trainStationPriceKeys.add(trainStationPriceKey);
+        }
+        List<String> trainStationPriceStrList = multistageCache.safeMultiGet(
+                trainStationPriceKeys,
+                String.class,
+                missKeys -> {
+                    List<TicketListDTO> missTicketList = missKeys.stream().map(trainStationPriceKeyMap::get).toList();
+                    LambdaQueryWrapper<TrainStationPriceDO> queryWrapper = Wrappers.lambdaQuery(TrainStationPriceDO.class)
+                            .in(TrainStationPriceDO::getTrainId, missTicketList.stream().map(TicketListDTO::getTrainId).distinct().toList())
+                            .in(TrainStationPriceDO::getDeparture, missTicketList.stream().map(TicketListDTO::getDeparture).distinct().toList())
+                            .in(TrainStationPriceDO::getArrival, missTicketList.stream().map(TicketListDTO::getArrival).distinct().toList());
+                    Map<String, List<TrainStationPriceDO>> trainStationPriceMap = trainStationPriceMapper.selectList(queryWrapper).stream()
+                            .collect(Collectors.groupingBy(each -> String.format(TRAIN_STATION_PRICE, each.getTrainId(), each.getDeparture(), each.getArrival())));
+                    Map<String, String> result = new HashMap<>(missKeys.size());
+                    missKeys.forEach(each -> result.put(each, JSON.toJSONString(trainStationPriceMap.getOrDefault(each, Collections.emptyList()))));
+                    return result;
+                },
+                ADVANCE_TICKET_DAY,
+                TimeUnit.DAYS
+        );
+        return trainStationPriceStrList.stream()
+                .map(each -> CacheUtil.isNullOrBlank(each) ? Collections.<TrainStationPriceDO>emptyList() : JSON.parseArray(each, TrainStationPriceDO.class))
+                .toList();
+    }
+
     private List<String> buildDepartureStationList(List<TicketListDTO> seatResults) {
         return seatResults.stream().map(TicketListDTO::getDeparture).distinct().collect(Collectors.toList());
     }
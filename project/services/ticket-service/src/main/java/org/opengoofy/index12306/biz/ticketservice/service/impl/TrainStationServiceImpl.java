@@ -9,12 +9,11 @@ import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationMapper;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TrainStationQueryRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
-import org.opengoofy.index12306.biz.ticketservice.toolkit.StationCalculateUtil;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainStationRouteIndexCache;
 import org.opengoofy.index12306.framework.starter.common.toolkit.BeanUtil;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 列车站点接口实现层
@@ -24,6 +23,7 @@ import java.util.stream.Collectors;
 public class TrainStationServiceImpl implements TrainStationService {
 
     private final TrainStationMapper trainStationMapper;
+    private final TrainStationRouteIndexCache trainStationRouteIndexCache;
 
     /**
      * 根据列车ID查询列车途径车站信息。
@@ -51,15 +51,8 @@ public class TrainStationServiceImpl implements TrainStationService {
      */
     @Override
     public List<RouteDTO> listTrainStationRoute(String trainId, String departure, String arrival) {
-        // 构建查询条件，根据列车ID查询，并只选择出发站信息
-        LambdaQueryWrapper<TrainStationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationDO.class)
-                .eq(TrainStationDO::getTrainId, trainId)
-                .select(TrainStationDO::getDeparture);
-        List<TrainStationDO> trainStationDOList = trainStationMapper.selectList(queryWrapper);
-        // 将查询结果中的出发站信息收集为列表
-        List<String> trainStationAllList = trainStationDOList.stream().map(TrainStationDO::getDeparture).collect(Collectors.toList());
-        // 使用工具类计算并返回途径路线信息
-        return StationCalculateUtil.throughStation(trainStationAllList, departure, arrival);
+        // 从列车站点路线索引中获取途径路线信息，索引不存在时才会查询数据库
+        return trainStationRouteIndexCache.get(trainId).listThroughRoute(departure, arrival);
     }
 
     /**
@@ -72,14 +65,7 @@ public class TrainStationServiceImpl implements TrainStationService {
      */
     @Override
     public List<RouteDTO> listTakeoutTrainStationRoute(String trainId, String departure, String arrival) {
-        // 构建查询条件，根据列车ID查询，并只选择出发站信息
-        LambdaQueryWrapper<TrainStationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationDO.class)
-                .eq(TrainStationDO::getTrainId, trainId)
-                .select(TrainStationDO::getDeparture);
-        List<TrainStationDO> trainStationDOList = trainStationMapper.selectList(queryWrapper);
-        // 将查询结果中的出发站信息收集为列表
-        List<String> trainStationAllList = trainStationDOList.stream().map(TrainStationDO::getDeparture).collect(Collectors.toList());
-        // 使用工具类计算并返回订餐服务中的经停站路线信息
-        return StationCalculateUtil.takeoutStation(trainStationAllList, departure, arrival);
+        // 从列车站点路线索引中获取需扣减余票的路线信息，索引不存在时才会查询数据库
+        return trainStationRouteIndexCache.get(trainId).listTakeoutRoute(departure, arrival);
     }
 }
@@ -0,0 +1,121 @@
+package org.opengoofy.index12306.biz.ticketservice.service.inventory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.SeatMapper;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainStationRouteIndexCache;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 座位区段位图库存
+ * 以列车为单位在进程内维护座位区段占用位图，替代按出发站到达站组合逐条查询 t_seat 的方式
+ * 位图由数据库相邻站点区段座位状态构建，定时失效后重新加载；锁定座位仍会写入数据库，并以出发站到达站记录状态做最终冲突校验
+ * 该模式适用于单实例部署或按列车路由购票请求的部署方式
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatSegmentBitmapInventory {
+
+    private final SeatMapper seatMapper;
+    private final TrainStationRouteIndexCache trainStationRouteIndexCache;
+
+    /**
+     * 列车 ID 与座位区段位图映射，不支持位图的列车缓存空值，避免每次访问都重新查询站点
+     */
+    private final Cache<String, Optional<TrainSeatSegmentBitmap>> trainSeatSegmentBitmapCache = Caffeine.newBuilder()
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .maximumSize(2000)
+            .build();
+
+    /**
+     * 获取列车座位区段位图
+     *
+     * @param trainId 列车 ID
+     * @return 列车座位区段位图，列车区段数量超过位图上限时返回 null
+     */
+    public TrainSeatSegmentBitmap getSeatSegmentBitmap(String trainId) {
+        return trainSeatSegmentBitmapCache.get(trainId, this::loadSeatSegmentBitmap).orElse(null);
+    }
+
+    /**
+     * 失效列车座位区段位图，下次访问时从数据库重新加载
+     *
+     * @param trainId 列车 ID
+     */
+    public void invalidate(String trainId) {
+        trainSeatSegmentBitmapCache.invalidate(trainId);
+    }
+
+    /**
+     * 占用出发站至到达站区间座位，任一座位占用失败时回退已占用座位
+     * 存在事务时注册事务同步，事务未提交则释放本次占用的座位
+     *
+     * @param seatSegmentBitmap           列车座位区段位图
+     * @param departure                   出发站
+     * @param arrival                     到达站
+     * @param trainPurchaseTicketRespList 乘车人以及座位信息
+     * @return 是否全部占用成功
+     */
+    public boolean occupy(TrainSeatSegmentBitmap seatSegmentBitmap, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketRespList) {
+        long mask = seatSegmentBitmap.segmentMask(departure, arrival);
+        List<TrainPurchaseTicketRespDTO> occupiedList = new ArrayList<>(trainPurchaseTicketRespList.size());
+        for (TrainPurchaseTicketRespDTO each : trainPurchaseTicketRespList) {
+            if (!seatSegmentBitmap.occupy(each.getCarriageNumber(), each.getSeatNumber(), mask)) {
+                occupiedList.forEach(item -> seatSegmentBitmap.release(item.getCarriageNumber(), item.getSeatNumber(), mask));
+                return false;
+            }
+            occupiedList.add(each);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        occupiedList.forEach(item -> seatSegmentBitmap.release(item.getCarriageNumber(), item.getSeatNumber(), mask));
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * 释放出发站至到达站区间座位
+     *
+     * @param seatSegmentBitmap          列车座位区段位图
+     * @param departure                  出发站
+     * @param arrival                    到达站
+     * @param trainPurchaseTicketResults 乘车人以及座位信息
+     */
+    public void release(TrainSeatSegmentBitmap seatSegmentBitmap, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults) {
+        long mask = seatSegmentBitmap.segmentMask(departure, arrival);
+        trainPurchaseTicketResults.forEach(each -> seatSegmentBitmap.release(each.getCarriageNumber(), each.getSeatNumber(), mask));
+    }
+
+    private Optional<TrainSeatSegmentBitmap> loadSeatSegmentBitmap(String trainId) {
+        List<String> stations = trainStationRouteIndexCache.get(trainId).getStations();
+        if (stations.size() < 2 || stations.size() - 1 > TrainSeatSegmentBitmap.MAX_SEGMENT_SIZE) {
+            log.warn("列车 {} 站点数量 {} 不支持座位区段位图，回退数据库查询", trainId, stations.size());
+            return Optional.empty();
+        }
+        List<RouteDTO> segments = new ArrayList<>(stations.size() - 1);
+        for (int i = 0; i < stations.size() - 1; i++) {
+            segments.add(new RouteDTO(stations.get(i), stations.get(i + 1)));
+        }
+        List<SeatDO> segmentSeats = seatMapper.listSeatSegmentStatus(Long.parseLong(trainId), segments);
+        return Optional.of(TrainSeatSegmentBitmap.build(stations, segmentSeats));
+    }
+}
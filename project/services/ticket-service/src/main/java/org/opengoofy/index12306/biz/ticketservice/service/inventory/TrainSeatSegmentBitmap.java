@@ -0,0 +1,244 @@
+package org.opengoofy.index12306.biz.ticketservice.service.inventory;
+
+import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatTypeCountDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 列车座位区段占用位图
+ * 每个座位对应一个 long 位图，第 i 位代表列车第 i 站至第 i + 1 站区段是否已被占用
+ * 判断座位在出发站至到达站之间是否可售只需一次掩码位运算，占用座位只需一次按位或
+ */
+public final class TrainSeatSegmentBitmap {
+
+    /**
+     * 单个座位位图最多支持的区段数量
+     */
+    public static final int MAX_SEGMENT_SIZE = Long.SIZE;
+
+    private static final String SEAT_KEY_SEPARATOR = "_";
+
+    /**
+     * 站点名称与站序下标映射
+     */
+    private final Map<String, Integer> stationIndexMap;
+
+    /**
+     * 车厢号_座位号与座位下标映射
+     */
+    private final Map<String, Integer> seatIndexMap;
+
+    /**
+     * 车厢号与车厢内座位下标映射，按照车厢号排序
+     */
+    private final Map<String, int[]> carriageSeatIndexMap;
+
+    private final String[] seatNumbers;
+
+    private final Integer[] seatTypes;
+
+    /**
+     * 座位区段占用位图
+     */
+    private final AtomicLongArray occupancy;
+
+    private TrainSeatSegmentBitmap(Map<String, Integer> stationIndexMap, Map<String, Integer> seatIndexMap, Map<String, int[]> carriageSeatIndexMap,
+                                   String[] seatNumbers, Integer[] seatTypes, long[] occupancy) {
+        this.stationIndexMap = stationIndexMap;
+        this.seatIndexMap = seatIndexMap;
+        this.carriageSeatIndexMap = carriageSeatIndexMap;
+        this.seatNumbers = seatNumbers;
+        this.seatTypes = seatTypes;
+        this.occupancy = new AtomicLongArray(occupancy);
+    }
+
+    /**
+     * 根据列车站点以及相邻站点区段座位记录构建位图
+     *
+     * @param stations     列车站点集合，按照站序排列
+     * @param segmentSeats 相邻站点区段座位记录
+     * @return 列车座位区段占用位图
+     */
+    public static TrainSeatSegmentBitmap build(List<String> stations, List<SeatDO> segmentSeats) {
+        Map<String, Integer> stationIndexMap = new HashMap<>(stations.size() * 2);
+        for (int i = 0; i < stations.size(); i++) {
+            stationIndexMap.putIfAbsent(stations.get(i), i);
+        }
+        Map<String, Integer> seatIndexMap = new HashMap<>();
+        Map<String, List<Integer>> carriageSeatIndexes = new TreeMap<>();
+        List<String> seatNumbers = new ArrayList<>();
+        List<Integer> seatTypes = new ArrayList<>();
+        for (SeatDO each : segmentSeats) {
+            String seatKey = buildSeatKey(each.getCarriageNumber(), each.getSeatNumber());
+            if (seatIndexMap.containsKey(seatKey)) {
+                continue;
+            }
+            int seatIndex = seatNumbers.size();
+            seatIndexMap.put(seatKey, seatIndex);
+            seatNumbers.add(each.getSeatNumber());
+            seatTypes.add(each.getSeatType());
+            carriageSeatIndexes.computeIfAbsent(each.getCarriageNumber(), key -> new ArrayList<>()).add(seatIndex);
+        }
+        long[] occupancy = new long[seatNumbers.size()];
+        for (SeatDO each : segmentSeats) {
+            Integer startIndex = stationIndexMap.get(each.getStartStation());
+            Integer endIndex = stationIndexMap.get(each.getEndStation());
+            if (startIndex == null || endIndex == null || endIndex - startIndex != 1) {
+                continue;
+            }
+            if (!Objects.equals(each.getSeatStatus(), SeatStatusEnum.AVAILABLE.getCode())) {
+                occupancy[seatIndexMap.get(buildSeatKey(each.getCarriageNumber(), each.getSeatNumber()))] |= 1L << startIndex;
+            }
+        }
+        Map<String, int[]> carriageSeatIndexMap = new TreeMap<>();
+        carriageSeatIndexes.forEach((carriageNumber, indexes) -> carriageSeatIndexMap.put(carriageNumber, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        return new TrainSeatSegmentBitmap(
+                stationIndexMap,
+                seatIndexMap,
+                carriageSeatIndexMap,
+                seatNumbers.toArray(new String[0]),
+                seatTypes.toArray(new Integer[0]),
+                occupancy
+        );
+    }
+
+    /**
+     * 计算出发站至到达站区段掩码
+     *
+     * @param departure 出发站
+     * @param arrival   到达站
+     * @return 区段掩码，站点不存在或顺序错误返回 0
+     */
+    public long segmentMask(String departure, String arrival) {
+        Integer startIndex = stationIndexMap.get(departure);
+        Integer endIndex = stationIndexMap.get(arrival);
+        if (startIndex == null || endIndex == null || startIndex >= endIndex) {
+            return 0L;
+        }
+        return (-1L >>> (MAX_SEGMENT_SIZE - (endIndex - startIndex))) << startIndex;
+    }
+
+    /**
+     * 获取列车车厢中可用的座位集合
+     */
+    public List<String> listAvailableSeat(String carriageNumber, Integer seatType, String departure, String arrival) {
+        long mask = segmentMask(departure, arrival);
+        int[] seatIndexes = carriageSeatIndexMap.get(carriageNumber);
+        if (mask == 0L || seatIndexes == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (int seatIndex : seatIndexes) {
+            if (Objects.equals(seatTypes[seatIndex], seatType) && isFree(seatIndex, mask)) {
+                result.add(seatNumbers[seatIndex]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询列车有余票的车厢号集合
+     */
+    public List<String> listUsableCarriageNumber(Integer seatType, String departure, String arrival) {
+        long mask = segmentMask(departure, arrival);
+        if (mask == 0L) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        carriageSeatIndexMap.forEach((carriageNumber, seatIndexes) -> {
+            for (int seatIndex : seatIndexes) {
+                if (Objects.equals(seatTypes[seatIndex], seatType) && isFree(seatIndex, mask)) {
+                    result.add(carriageNumber);
+                    break;
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 获取列车车厢余票集合，与入参车厢编号一一对应
+     */
+    public List<Integer> listSeatRemainingTicket(String departure, String arrival, List<String> carriageNumbers) {
+        long mask = segmentMask(departure, arrival);
+        List<Integer> result = new ArrayList<>(carriageNumbers.size());
+        for (String carriageNumber : carriageNumbers) {
+            int count = 0;
+            int[] seatIndexes = carriageSeatIndexMap.get(carriageNumber);
+            if (mask != 0L && seatIndexes != null) {
+                for (int seatIndex : seatIndexes) {
+                    if (isFree(seatIndex, mask)) {
+                        count++;
+                    }
+                }
+            }
+            result.add(count);
+        }
+        return result;
+    }
+
+    /**
+     * 获取出发站至到达站区间各座位类型可用座位数量，不返回数量为 0 的座位类型
+     */
+    public List<SeatTypeCountDTO> listSeatTypeCount(String departure, String arrival, List<Integer> seatTypeList) {
+        long mask = segmentMask(departure, arrival);
+        if (mask == 0L) {
+            return Collections.emptyList();
+        }
+        Map<Integer, Integer> seatTypeCountMap = new TreeMap<>();
+        for (int seatIndex = 0; seatIndex < seatTypes.length; seatIndex++) {
+            if (seatTypeList.contains(seatTypes[seatIndex]) && isFree(seatIndex, mask)) {
+                seatTypeCountMap.merge(seatTypes[seatIndex], 1, Integer::sum);
+            }
+        }
+        List<SeatTypeCountDTO> result = new ArrayList<>(seatTypeCountMap.size());
+        seatTypeCountMap.forEach((seatType, seatCount) -> result.add(new SeatTypeCountDTO(seatType, seatCount)));
+        return result;
+    }
+
+    /**
+     * 占用座位区段，区段已有部分被占用时返回 false
+     */
+    public boolean occupy(String carriageNumber, String seatNumber, long mask) {
+        Integer seatIndex = seatIndexMap.get(buildSeatKey(carriageNumber, seatNumber));
+        if (seatIndex == null || mask == 0L) {
+            return false;
+        }
+        for (; ; ) {
+            long current = occupancy.get(seatIndex);
+            if ((current & mask) != 0L) {
+                return false;
+            }
+            if (occupancy.compareAndSet(seatIndex, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放座位区段
+     */
+    public void release(String carriageNumber, String seatNumber, long mask) {
+        Integer seatIndex = seatIndexMap.get(buildSeatKey(carriageNumber, seatNumber));
+        if (seatIndex != null) {
+            occupancy.accumulateAndGet(seatIndex, ~mask, (current, value) -> current & value);
+        }
+    }
+
+    private boolean isFree(int seatIndex, long mask) {
+        return (occupancy.get(seatIndex) & mask) == 0L;
+    }
+
+    private static String buildSeatKey(String carriageNumber, String seatNumber) {
+        return carriageNumber + SEAT_KEY_SEPARATOR + seatNumber;
+    }
+}
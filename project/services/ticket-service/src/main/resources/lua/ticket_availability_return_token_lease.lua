@@ -0,0 +1,27 @@
+-- KEYS[1]: 列车令牌桶 Hash
+-- ARGV[1]: 租约对应的令牌桶版本
+-- ARGV[2]: 座位类型数量 n
+-- ARGV[3] ~ ARGV[2 + 2n]: 座位类型与归还数量交替排列
+-- ARGV[3 + 2n] ~ ARGV[#ARGV]: 需要归还令牌的路线字段前缀
+-- 令牌桶已被删除或重建时版本不一致，租约令牌直接作废并返回 1，避免重建后的令牌桶令牌数量超过实际座位
+local version = redis.call('hget', KEYS[1], 'version') or ''
+if version ~= ARGV[1] then
+    return 1
+end
+
+local seatTypeSize = tonumber(ARGV[2])
+local routeOffset = 3 + seatTypeSize * 2
+
+for i = 3, routeOffset - 1, 2 do
+    local seatType = ARGV[i]
+    local count = tonumber(ARGV[i + 1])
+    for j = routeOffset, #ARGV do
+        local actualInnerHashKey = ARGV[j] .. seatType
+        local ticketSeatAvailabilityTokenValue = tonumber(redis.call('hget', KEYS[1], actualInnerHashKey))
+        if ticketSeatAvailabilityTokenValue ~= nil and ticketSeatAvailabilityTokenValue >= 0 then
+            redis.call('hincrby', KEYS[1], actualInnerHashKey, count)
+        end
+    end
+end
+
+return 0
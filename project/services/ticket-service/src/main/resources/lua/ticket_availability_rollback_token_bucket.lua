@@ -1,26 +1,11 @@
-local inputString = KEYS[2]
-local actualKey = inputString
-local colonIndex = string.find(actualKey, ":")
-if colonIndex ~= nil then
-    actualKey = string.sub(actualKey, colonIndex + 1)
-end
-
-local jsonArrayStr = ARGV[1]
-local jsonArray = cjson.decode(jsonArrayStr)
-local alongJsonArrayStr = ARGV[2]
-local alongJsonArray = cjson.decode(alongJsonArrayStr)
-
-for index, jsonObj in ipairs(jsonArray) do
-    local seatType = tonumber(jsonObj.seatType)
-    local count = tonumber(jsonObj.count)
-    for indexTwo, alongJsonObj in ipairs(alongJsonArray) do
-        local startStation = tostring(alongJsonObj.startStation)
-        local endStation = tostring(alongJsonObj.endStation)
-        local actualInnerHashKey = startStation .. "_" .. endStation .. "_" .. seatType
-        local ticketSeatAvailabilityTokenValue = tonumber(redis.call('hget', KEYS[1], tostring(actualInnerHashKey)))
-        if ticketSeatAvailabilityTokenValue >= 0 then
-            redis.call('hincrby', KEYS[1], tostring(actualInnerHashKey), count)
-        end
+-- KEYS[1]: 列车令牌桶 Hash
+-- ARGV[1] ~ ARGV[#ARGV]: 令牌桶字段与回滚数量交替排列，同一列车多笔订单的回滚数量已按字段累加
+for i = 1, #ARGV, 2 do
+    local actualInnerHashKey = ARGV[i]
+    local count = tonumber(ARGV[i + 1])
+    local ticketSeatAvailabilityTokenValue = tonumber(redis.call('hget', KEYS[1], actualInnerHashKey))
+    if ticketSeatAvailabilityTokenValue ~= nil and ticketSeatAvailabilityTokenValue >= 0 then
+        redis.call('hincrby', KEYS[1], actualInnerHashKey, count)
     end
 end
 
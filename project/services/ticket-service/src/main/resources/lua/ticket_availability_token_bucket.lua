@@ -1,46 +1,31 @@
-local inputString = KEYS[2]
-local actualKey = inputString
-local colonIndex = string.find(actualKey, ":")
-if colonIndex ~= nil then
-    actualKey = string.sub(actualKey, colonIndex + 1)
-end
-
-local jsonArrayStr = ARGV[1]
-local jsonArray = cjson.decode(jsonArrayStr)
+-- KEYS[1]: 列车令牌桶 Hash
+-- ARGV[1]: 购票出发站至到达站令牌字段前缀
+-- ARGV[2]: 座位类型数量 n
+-- ARGV[3] ~ ARGV[2 + 2n]: 座位类型与购票数量交替排列
+-- ARGV[3 + 2n] ~ ARGV[#ARGV]: 需要扣减令牌的路线字段前缀
+local seatTypeSize = tonumber(ARGV[2])
+local routeOffset = 3 + seatTypeSize * 2
 
-local result = {}
-local tokenIsNull = false
 local tokenIsNullSeatTypeCounts = {}
-
-for index, jsonObj in ipairs(jsonArray) do
-    local seatType = tonumber(jsonObj.seatType)
-    local count = tonumber(jsonObj.count)
-    local actualInnerHashKey = actualKey .. "_" .. seatType
-    local ticketSeatAvailabilityTokenValue = tonumber(redis.call('hget', KEYS[1], tostring(actualInnerHashKey)))
+for i = 3, routeOffset - 1, 2 do
+    local seatType = ARGV[i]
+    local count = tonumber(ARGV[i + 1])
+    local ticketSeatAvailabilityTokenValue = tonumber(redis.call('hget', KEYS[1], ARGV[1] .. seatType)) or 0
     if ticketSeatAvailabilityTokenValue < count then
-        tokenIsNull = true
-        table.insert(tokenIsNullSeatTypeCounts, seatType .. "_" .. count)
+        tokenIsNullSeatTypeCounts[#tokenIsNullSeatTypeCounts + 1] = seatType .. "_" .. ARGV[i + 1]
     end
 end
 
-result['tokenIsNull'] = tokenIsNull
-if tokenIsNull then
-    result['tokenIsNullSeatTypeCounts'] = tokenIsNullSeatTypeCounts
-    return cjson.encode(result)
+if #tokenIsNullSeatTypeCounts > 0 then
+    return tokenIsNullSeatTypeCounts
 end
 
-local alongJsonArrayStr = ARGV[2]
-local alongJsonArray = cjson.decode(alongJsonArrayStr)
-
-for index, jsonObj in ipairs(jsonArray) do
-    local seatType = tonumber(jsonObj.seatType)
-    local count = tonumber(jsonObj.count)
-    for indexTwo, alongJsonObj in ipairs(alongJsonArray) do
-        local startStation = tostring(alongJsonObj.startStation)
-        local endStation = tostring(alongJsonObj.endStation)
-        local actualInnerHashKey = startStation .. "_" .. endStation .. "_" .. seatType
-        redis.call('hincrby', KEYS[1], tostring(actualInnerHashKey), -count)
+for i = 3, routeOffset - 1, 2 do
+    local seatType = ARGV[i]
+    local count = -tonumber(ARGV[i + 1])
+    for j = routeOffset, #ARGV do
+        redis.call('hincrby', KEYS[1], ARGV[j] .. seatType, count)
     end
 end
 
-return cjson.encode(result)
+return tokenIsNullSeatTypeCounts
@@ -0,0 +1,9 @@
+-- KEYS: 受影响区段的站点余票 Hash Key，均以列车 ID 作为 Hash Tag，位于同一 Redis Cluster 槽位
+-- ARGV: 座位类型1, 变更数量1, 座位类型2, 变更数量2 ...
+for i = 1, #KEYS do
+    for j = 1, #ARGV, 2 do
+        redis.call('hincrby', KEYS[i], ARGV[j], ARGV[j + 1])
+    end
+end
+
+return #KEYS
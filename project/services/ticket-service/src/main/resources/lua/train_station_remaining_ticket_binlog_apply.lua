@@ -0,0 +1,20 @@
+-- KEYS[1]: 消息应用标记 Key，与余票 Key 使用相同的列车 Hash Tag
+-- KEYS[2] ~ KEYS[#KEYS]: 站点余票 Hash Key
+-- ARGV[1]: 应用标记过期时间，单位秒
+-- ARGV[2] ~ ARGV[#ARGV]: 按照余票 Key 顺序排列，每个 Key 先给出座位类型数量 n，之后为 n 组座位类型与变更数量
+-- 同一消息重复投递时应用标记已存在，直接返回 0，余票变更不会被重复累加
+if not redis.call('set', KEYS[1], '1', 'NX', 'EX', ARGV[1]) then
+    return 0
+end
+
+local offset = 2
+for i = 2, #KEYS do
+    local seatTypeSize = tonumber(ARGV[offset])
+    offset = offset + 1
+    for j = 1, seatTypeSize do
+        redis.call('hincrby', KEYS[i], ARGV[offset], ARGV[offset + 1])
+        offset = offset + 2
+    end
+end
+
+return 1
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.inventory;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列车座位区段占用位图测试
+ */
+public class TrainSeatSegmentBitmapTests {
+
+    private static final String CARRIAGE_NUMBER = "01";
+    private static final Integer SEAT_TYPE = 1;
+
+    @Test
+    public void testSegmentMask() {
+        TrainSeatSegmentBitmap bitmap = build(stations(5), List.of("01A"));
+        Assertions.assertEquals(0b0001L, bitmap.segmentMask("S0", "S1"));
+        Assertions.assertEquals(0b0110L, bitmap.segmentMask("S1", "S3"));
+        Assertions.assertEquals(0b1111L, bitmap.segmentMask("S0", "S4"));
+        Assertions.assertEquals(0L, bitmap.segmentMask("S3", "S1"));
+        Assertions.assertEquals(0L, bitmap.segmentMask("S2", "S2"));
+        Assertions.assertEquals(0L, bitmap.segmentMask("S0", "UNKNOWN"));
+    }
+
+    @Test
+    public void testOccupyAndRelease() {
+        TrainSeatSegmentBitmap bitmap = build(stations(5), List.of("01A"));
+        long firstMask = bitmap.segmentMask("S0", "S2");
+        Assertions.assertTrue(bitmap.occupy(CARRIAGE_NUMBER, "01A", firstMask));
+        // 相邻不重叠区段可以继续占用，重叠区段占用失败
+        Assertions.assertTrue(bitmap.occupy(CARRIAGE_NUMBER, "01A", bitmap.segmentMask("S2", "S3")));
+        Assertions.assertFalse(bitmap.occupy(CARRIAGE_NUMBER, "01A", bitmap.segmentMask("S1", "S4")));
+        Assertions.assertTrue(bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, "S0", "S1").isEmpty());
+        Assertions.assertEquals(List.of("01A"), bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, "S3", "S4"));
+        bitmap.release(CARRIAGE_NUMBER, "01A", firstMask);
+        // 释放只清除对应区段，其他区段仍被占用
+        Assertions.assertEquals(List.of("01A"), bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, "S0", "S2"));
+        Assertions.assertTrue(bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, "S1", "S3").isEmpty());
+        Assertions.assertFalse(bitmap.occupy(CARRIAGE_NUMBER, "01B", firstMask));
+        Assertions.assertFalse(bitmap.occupy(CARRIAGE_NUMBER, "01A", 0L));
+    }
+
+    @Test
+    public void testBuildFromSegmentSeatStatus() {
+        List<String> stations = stations(4);
+        List<SeatDO> segmentSeats = new ArrayList<>();
+        for (int i = 0; i < stations.size() - 1; i++) {
+            Integer seatStatus = i == 1 ? SeatStatusEnum.LOCKED.getCode() : SeatStatusEnum.AVAILABLE.getCode();
+            segmentSeats.add(seat("01A", stations.get(i), stations.get(i + 1), seatStatus));
+            segmentSeats.add(seat("01B", stations.get(i), stations.get(i + 1), SeatStatusEnum.AVAILABLE.getCode()));
+        }
+        TrainSeatSegmentBitmap bitmap = TrainSeatSegmentBitmap.build(stations, segmentSeats);
+        Assertions.assertEquals(List.of("01A", "01B"), bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, "S0", "S1"));
+        Assertions.assertEquals(List.of("01B"), bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, "S0", "S3"));
+        Assertions.assertEquals(List.of(1), bitmap.listSeatRemainingTicket("S1", "S2", List.of(CARRIAGE_NUMBER)));
+    }
+
+    @Test
+    public void testMaxSegmentBoundary() {
+        TrainSeatSegmentBitmap bitmap = build(stations(TrainSeatSegmentBitmap.MAX_SEGMENT_SIZE + 1), List.of("01A"));
+        String lastStation = "S" + TrainSeatSegmentBitmap.MAX_SEGMENT_SIZE;
+        String penultimateStation = "S" + (TrainSeatSegmentBitmap.MAX_SEGMENT_SIZE - 1);
+        Assertions.assertEquals(-1L, bitmap.segmentMask("S0", lastStation));
+        Assertions.assertEquals(Long.MIN_VALUE, bitmap.segmentMask(penultimateStation, lastStation));
+        Assertions.assertEquals(Long.MAX_VALUE, bitmap.segmentMask("S0", penultimateStation));
+        Assertions.assertTrue(bitmap.occupy(CARRIAGE_NUMBER, "01A", bitmap.segmentMask(penultimateStation, lastStation)));
+        Assertions.assertTrue(bitmap.occupy(CARRIAGE_NUMBER, "01A", bitmap.segmentMask("S0", penultimateStation)));
+        Assertions.assertFalse(bitmap.occupy(CARRIAGE_NUMBER, "01A", bitmap.segmentMask("S0", lastStation)));
+        bitmap.release(CARRIAGE_NUMBER, "01A", bitmap.segmentMask(penultimateStation, lastStation));
+        Assertions.assertEquals(List.of("01A"), bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, penultimateStation, lastStation));
+        Assertions.assertTrue(bitmap.listAvailableSeat(CARRIAGE_NUMBER, SEAT_TYPE, "S0", lastStation).isEmpty());
+    }
+
+    private static List<String> stations(int size) {
+        List<String> stations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            stations.add("S" + i);
+        }
+        return stations;
+    }
+
+    private static TrainSeatSegmentBitmap build(List<String> stations, List<String> seatNumbers) {
+        List<SeatDO> segmentSeats = new ArrayList<>();
+        for (String seatNumber : seatNumbers) {
+            for (int i = 0; i < stations.size() - 1; i++) {
+                segmentSeats.add(seat(seatNumber, stations.get(i), stations.get(i + 1), SeatStatusEnum.AVAILABLE.getCode()));
+            }
+        }
+        return TrainSeatSegmentBitmap.build(stations, segmentSeats);
+    }
+
+    private static SeatDO seat(String seatNumber, String startStation, String endStation, Integer seatStatus) {
+        return SeatDO.builder()
+                .carriageNumber(CARRIAGE_NUMBER)
+                .seatNumber(seatNumber)
+                .seatType(SEAT_TYPE)
+                .startStation(startStation)
+                .endStation(endStation)
+                .seatStatus(seatStatus)
+                .build();
+    }
+}
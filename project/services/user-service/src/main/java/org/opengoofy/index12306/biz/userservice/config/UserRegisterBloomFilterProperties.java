@@ -27,4 +27,14 @@ public final class UserRegisterBloomFilterProperties {
      * 预期错误概率
      */
     private Double falseProbability = 0.03D;
+
+    /**
+     * 是否开启本地镜像，开启后判断用户名是否存在不再访问 Redis
+     */
+    private Boolean localMirrorEnabled = true;
+
+    /**
+     * 本地镜像与 Redis 全量合并间隔，单位毫秒
+     */
+    private Long localMirrorResyncInterval = 300000L;
 }
@@ -0,0 +1,183 @@
+package org.opengoofy.index12306.biz.userservice.service.cache;
+
+import io.netty.buffer.ByteBuf;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.userservice.config.UserRegisterBloomFilterProperties;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.misc.Hash;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 用户注册布隆过滤器本地镜像
+ * 启动时从 Redis 加载布隆过滤器位数组，判断用户名是否存在时在本地按照 Redisson 相同的编码以及哈希算法计算，不再访问 Redis
+ * 新增用户名时先写入本地位数组，再异步写入 Redis 并通过 Topic 通知其它实例；定时将 Redis 位数组合并到本地，补偿丢失的通知
+ * 布隆过滤器只会新增位，镜像滞后只会短暂误判为不存在，注册时由数据库唯一索引兜底
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRegisterBloomFilterMirror implements InitializingBean, DisposableBean {
+
+    private static final String ADD_TOPIC_SUFFIX = "_add_topic";
+
+    private final RedissonClient redissonClient;
+    private final RBloomFilter<String> userRegisterCachePenetrationBloomFilter;
+    private final UserRegisterBloomFilterProperties userRegisterBloomFilterProperties;
+
+    private AtomicLongArray bits;
+    private long size;
+    private int hashIterations;
+    private RTopic addTopic;
+    private int addListenerId;
+    private ScheduledThreadPoolExecutor mirrorExecutor;
+
+    /**
+     * 判断用户名是否可能存在
+     *
+     * @param username 用户名
+     * @return 不存在一定不存在，存在不一定存在
+     */
+    public boolean contains(String username) {
+        if (!isMirrorEnabled()) {
+            return userRegisterCachePenetrationBloomFilter.contains(username);
+        }
+        for (long index : indexes(username)) {
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 新增用户名，本地位数组立即生效，Redis 布隆过滤器以及其它实例异步生效
+     *
+     * @param username 用户名
+     */
+    public void add(String username) {
+        if (!isMirrorEnabled()) {
+            userRegisterCachePenetrationBloomFilter.add(username);
+            return;
+        }
+        setBits(username);
+        try {
+            mirrorExecutor.execute(() -> writeThrough(username));
+        } catch (RejectedExecutionException ex) {
+            writeThrough(username);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isMirrorEnabled()) {
+            return;
+        }
+        size = userRegisterCachePenetrationBloomFilter.getSize();
+        hashIterations = userRegisterCachePenetrationBloomFilter.getHashIterations();
+        bits = new AtomicLongArray((int) ((size + Long.SIZE - 1) / Long.SIZE));
+        mirrorExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "user-register-bloom-filter-mirror");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 先订阅再加载，避免加载期间新增的用户名丢失
+        addTopic = redissonClient.getTopic(userRegisterBloomFilterProperties.getName() + ADD_TOPIC_SUFFIX, StringCodec.INSTANCE);
+        addListenerId = addTopic.addListener(String.class, (channel, username) -> setBits(username));
+        mergeFromRedis();
+        long resyncInterval = userRegisterBloomFilterProperties.getLocalMirrorResyncInterval();
+        mirrorExecutor.scheduleWithFixedDelay(this::mergeFromRedis, resyncInterval, resyncInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (addTopic != null) {
+            addTopic.removeListener(addListenerId);
+        }
+        if (mirrorExecutor != null) {
+            mirrorExecutor.shutdown();
+        }
+    }
+
+    private boolean isMirrorEnabled() {
+        return Boolean.TRUE.equals(userRegisterBloomFilterProperties.getLocalMirrorEnabled());
+    }
+
+    private void writeThrough(String username) {
+        try {
+            userRegisterCachePenetrationBloomFilter.add(username);
+            addTopic.publish(username);
+        } catch (Throwable ex) {
+            log.error("用户名 [{}] 写入注册布隆过滤器失败", username, ex);
+        }
+    }
+
+    /**
+     * 将 Redis 位数组按位或合并到本地，布隆过滤器的位只会被置为 1，合并不会丢失本地已写入的位
+     */
+    private void mergeFromRedis() {
+        try {
+            BitSet redisBits = redissonClient.getBitSet(userRegisterBloomFilterProperties.getName()).asBitSet();
+            long[] words = redisBits.toLongArray();
+            for (int i = 0; i < words.length && i < bits.length(); i++) {
+                long word = words[i];
+                if (word != 0L) {
+                    bits.accumulateAndGet(i, word, (current, value) -> current | value);
+                }
+            }
+        } catch (Throwable ex) {
+            log.error("同步用户注册布隆过滤器本地镜像失败", ex);
+        }
+    }
+
+    private void setBits(String username) {
+        for (long index : indexes(username)) {
+            int wordIndex = (int) (index >>> 6);
+            long mask = 1L << index;
+            if ((bits.get(wordIndex) & mask) == 0L) {
+                bits.accumulateAndGet(wordIndex, mask, (current, value) -> current | value);
+            }
+        }
+    }
+
+    /**
+     * 与 RedissonBloomFilter 保持一致：按照布隆过滤器编码序列化后计算 128 位哈希，再进行双重哈希得到位下标
+     */
+    private long[] indexes(String username) {
+        long[] hashes;
+        ByteBuf state;
+        try {
+            state = userRegisterCachePenetrationBloomFilter.getCodec().getValueEncoder().encode(username);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+        try {
+            hashes = Hash.hash128(state);
+        } finally {
+            state.release();
+        }
+        long[] indexes = new long[hashIterations];
+        long hash = hashes[0];
+        for (int i = 0; i < hashIterations; i++) {
+            indexes[i] = (hash & Long.MAX_VALUE) % size;
+            if (i % 2 == 0) {
+                hash += hashes[1];
+            } else {
+                hash += hashes[0];
+            }
+        }
+        return indexes;
+    }
+}
@@ -25,6 +25,7 @@ import org.opengoofy.index12306.biz.userservice.dto.resp.UserQueryRespDTO;
 import org.opengoofy.index12306.biz.userservice.dto.resp.UserRegisterRespDTO;
 import org.opengoofy.index12306.biz.userservice.service.UserLoginService;
 import org.opengoofy.index12306.biz.userservice.service.UserService;
+import org.opengoofy.index12306.biz.userservice.service.cache.UserRegisterBloomFilterMirror;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.common.toolkit.BeanUtil;
 import org.opengoofy.index12306.framework.starter.convention.exception.ClientException;
@@ -33,7 +34,6 @@ import org.opengoofy.index12306.framework.starter.designpattern.chain.AbstractCh
 import org.opengoofy.index12306.frameworks.starter.user.core.UserContext;
 import org.opengoofy.index12306.frameworks.starter.user.core.UserInfoDTO;
 import org.opengoofy.index12306.frameworks.starter.user.toolkit.JWTUtil;
-import org.redisson.api.RBloomFilter;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.dao.DuplicateKeyException;
@@ -72,7 +72,7 @@ public class UserLoginServiceImpl implements UserLoginService {
     private final RedissonClient redissonClient;
     private final DistributedCache distributedCache;
     private final AbstractChainContext<UserRegisterReqDTO> abstractChainContext;
-    private final RBloomFilter<String> userRegisterCachePenetrationBloomFilter;
+    private final UserRegisterBloomFilterMirror userRegisterBloomFilterMirror;
 
     /**
      * 用户登录
@@ -166,8 +166,8 @@ public class UserLoginServiceImpl implements UserLoginService {
      */
     @Override
     public Boolean hasUsername(String username) {
-        // 检查用户名是否存在于布隆过滤器（不存在就一定不存在，存在不一定存在）
-        boolean hasUsername = userRegisterCachePenetrationBloomFilter.contains(username);
+        // 检查用户名是否存在于布隆过滤器（不存在就一定不存在，存在不一定存在），优先通过本地镜像判断
+        boolean hasUsername = userRegisterBloomFilterMirror.contains(username);
         if (hasUsername) {
             StringRedisTemplate instance = (StringRedisTemplate) distributedCache.getInstance();
             // 存在，则从 Redis 中再次查询 可重复使用用户名
@@ -236,7 +236,7 @@ public class UserLoginServiceImpl implements UserLoginService {
             // 删除Redis中的 可重复使用用户名
             instance.opsForSet().remove(USER_REGISTER_REUSE_SHARDING + hashShardingIdx(username), username);
             // 布隆过滤器设计问题：设置多大、碰撞率以及初始容量不够了怎么办？详情查看：https://nageoffer.com/12306/question
-            userRegisterCachePenetrationBloomFilter.add(username);
+            userRegisterBloomFilterMirror.add(username);
         } finally {
             lock.unlock();
         }